@@ -0,0 +1,26 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ *
+ * Accepts the usual JMH command line, and always enables the GC profiler so that
+ * the allocation rate is reported alongside the throughput.
+ */
+public class BenchmarkMain {
+
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+		final Options options = new OptionsBuilder()
+			.parent(commandLine)
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import model.Tetrimino;
+import model.TetriminoColor;
+import model.TetriminoShape;
+import model.TetriminoType;
+import model.TetrisBitBoard;
+import model.TetrisBoard;
+import model.TetrisCellBoard;
+import model.TetrisConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the TetrisBoard implementations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({"bit", "cell"})
+	public String boardType;
+
+	/**
+	 * Percentage of the rows of the board filled with random blocks.
+	 */
+	@Param({"0", "25", "50", "75"})
+	public int fillLevel;
+
+	private TetrisBoard board;
+	private Tetrimino tetrimino;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		board = createBoard(boardType);
+		BoardFill.fill(board, fillLevel, 42);
+
+		final TetriminoType type = TetriminoType.RIGHT_L;
+		tetrimino = new Tetrimino(TetriminoColor.getColorFromType(type), type, board.getWidth() / 2, 0);
+	}
+
+	static TetrisBoard createBoard(final String boardType) {
+		switch (boardType) {
+		case "bit":
+			return new TetrisBitBoard(TetrisConfiguration.DEFAULT);
+		case "cell":
+			return new TetrisCellBoard(TetrisConfiguration.DEFAULT);
+		default:
+			throw new IllegalArgumentException("BoardBenchmark : unknown board type " + boardType);
+		}
+	}
+
+	/**
+	 * Lock a tetrimino at the top of the board, then remove its blocks so that the
+	 * board stays in the same state.
+	 */
+	@Benchmark
+	public TetrisBoard addTetrimino() {
+		board.addTetrimino(tetrimino);
+
+		final TetriminoShape shape = tetrimino.getShape();
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			board.setBlock(tetrimino.getX() + shape.blockX(i), tetrimino.getY() + shape.blockY(i), null);
+		}
+		return board;
+	}
+
+	/**
+	 * Look for complete lines when there is none, as after most landings.
+	 */
+	@Benchmark
+	public int checkForCompleteLines() {
+		return board.checkForCompleteLines();
+	}
+
+	/**
+	 * Collision test of a tetrimino one row below its position.
+	 */
+	@Benchmark
+	public boolean fits() {
+		return board.fits(tetrimino, tetrimino.getX(), tetrimino.getY() + 1);
+	}
+
+	/**
+	 * Board whose 4 bottom rows are complete before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class FullLinesState {
+		@Param({"bit", "cell"})
+		public String boardType;
+
+		@Param({"0", "25", "50", "75"})
+		public int fillLevel;
+
+		TetrisBoard board;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			board = createBoard(boardType);
+		}
+
+		@Setup(Level.Invocation)
+		public void fill() {
+			BoardFill.fill(board, fillLevel, 42);
+			BoardFill.fillBottomRows(board, 4);
+		}
+	}
+
+	/**
+	 * Clear four complete lines at once (a 'tetris').
+	 *
+	 * NB : the allocations of the per-invocation refill of the board are included
+	 * in the reported allocation rate.
+	 */
+	@Benchmark
+	public int clearFourLines(final FullLinesState state) {
+		return state.board.checkForCompleteLines();
+	}
+
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import model.TetriminoColor;
+import model.TetriminoType;
+import model.TetrisBoard;
+
+import java.util.Random;
+
+/**
+ * Fills boards with reproducible 'garbage' for the benchmarks.
+ */
+public final class BoardFill {
+
+	private BoardFill() { }
+
+	/**
+	 * Clear the board, then fill the given percentage of its rows, from the bottom,
+	 * with random blocks. Each filled row has at least one hole, so that no line
+	 * is complete.
+	 *
+	 * @param board Board to fill.
+	 * @param fillLevel Percentage of the rows to fill (0-100).
+	 * @param seed Seed of the random blocks.
+	 */
+	public static void fill(final TetrisBoard board, final int fillLevel, final long seed) {
+		final Random random = new Random(seed);
+		final TetriminoType[] types = TetriminoType.values();
+		final int width = board.getWidth(), height = board.getHeight();
+		final int rows = height * fillLevel / 100;
+
+		board.clear();
+		for (int y = height - rows; y < height; y++) {
+			final int hole = random.nextInt(width);
+			for (int x = 0; x < width; x++) {
+				if (x == hole || random.nextInt(4) == 0) continue;
+				final TetriminoType type = types[random.nextInt(types.length)];
+				board.setBlock(x, y, TetriminoColor.getColorFromType(type));
+			}
+		}
+	}
+
+	/**
+	 * Completely fill the given rows at the bottom of the board.
+	 */
+	public static void fillBottomRows(final TetrisBoard board, final int rows) {
+		final TetriminoColor color = TetriminoColor.getColorFromType(TetriminoType.STICK);
+		for (int y = board.getHeight() - rows; y < board.getHeight(); y++) {
+			for (int x = 0; x < board.getWidth(); x++) {
+				board.setBlock(x, y, color);
+			}
+		}
+	}
+
+}
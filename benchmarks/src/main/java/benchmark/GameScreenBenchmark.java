@@ -0,0 +1,131 @@
+package benchmark;
+
+import control.TetrisController;
+import model.TetrisConfiguration;
+import model.TetrisModel;
+import org.openjdk.jmh.annotations.*;
+import view.screens.GameScreen;
+import view.screens.Screen;
+import view.screens.ScreenContainer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rendering of the game screen into an offscreen image,
+ * which keeps its contents between the frames like the view.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GameScreenBenchmark {
+	private static final Font TEXT_FONT = new Font(Font.SERIF, Font.BOLD, 16);
+
+	/**
+	 * Percentage of the rows of the board filled with random blocks.
+	 */
+	@Param({"0", "25", "50", "75"})
+	public int fillLevel;
+
+	private TetrisModel model;
+	private TetrisController controller;
+	private GameScreen screen;
+	private BufferedImage image;
+	private Graphics2D graphics;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		model = new TetrisModel(TetrisConfiguration.DEFAULT, 42, false);
+		controller = new TetrisController(model);
+		final TetrisConfiguration configuration = model.getConfiguration();
+		final int width = (configuration.width() + 2) * configuration.pieceSize();
+		final int height = (configuration.height() + 2) * configuration.pieceSize();
+
+		screen = new GameScreen(controller);
+		screen.init(new OffscreenContainer(width, height)); // starts the game
+		BoardFill.fill(model.getBoard(), fillLevel, 42);
+
+		image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+		renderFullFrame(); // the contents of the image before the first frame
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		graphics.dispose();
+	}
+
+	/**
+	 * Render a full frame, as TetrisView does after a change of Screen : the
+	 * whole board layer is redrawn, then the image is cleared and the whole
+	 * screen drawn.
+	 */
+	@Benchmark
+	public BufferedImage renderFullFrame() {
+		screen.invalidate();
+		screen.changedRegion(0);
+
+		final Graphics2D g2d = (Graphics2D) graphics.create();
+		g2d.setColor(screen.backgroundColor());
+		g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+		screen.render(g2d, TEXT_FONT, 0);
+		g2d.dispose();
+		return image;
+	}
+
+	/**
+	 * Update the game once, then render the frame as TetrisView does : only the
+	 * region changed by the update is drawn. The board is filled again after a
+	 * game over.
+	 */
+	@Benchmark
+	public BufferedImage renderChangedRegion() {
+		if (controller.updateGame()) {
+			model.startGame();
+			BoardFill.fill(model.getBoard(), fillLevel, 42);
+			screen.invalidate();
+		}
+
+		final Rectangle region = screen.changedRegion(0.5);
+		final Graphics2D g2d = (Graphics2D) graphics.create();
+		g2d.clipRect(region.x, region.y, region.width, region.height);
+		screen.render(g2d, TEXT_FONT, 0.5);
+		g2d.dispose();
+		return image;
+	}
+
+	/**
+	 * Minimal ScreenContainer for a Screen rendered outside of any window.
+	 */
+	private static class OffscreenContainer implements ScreenContainer {
+		private final int width, height;
+
+		OffscreenContainer(final int width, final int height) {
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public void pushScreen(final Screen screen) { }
+
+		@Override
+		public void deletePreviousScreen() { }
+
+		@Override
+		public void requestExit() { }
+
+		@Override
+		public int containerWidth() { return width; }
+
+		@Override
+		public int containerHeight() { return height; }
+	}
+
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import model.TetrisConfiguration;
+import model.TetrisModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the update of the interactive game's model.
+ *
+ * Unlike EngineBenchmark.tick, this includes the cost of the model's game event
+ * handling. The highscores are kept in memory : the benchmark does not touch the
+ * 'scores.txt' file of the working directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+	private TetrisModel model;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		model = new TetrisModel(TetrisConfiguration.DEFAULT, 42, false);
+		model.startGame();
+	}
+
+	/**
+	 * Play complete games, one update per invocation, without any player input.
+	 */
+	@Benchmark
+	public boolean updateGame() {
+		if (model.updateGame()) {
+			model.startGame();
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import ai.HeuristicWeights;
+import ai.RolloutEvaluator;
+import ai.RolloutResult;
+import model.TetrisConfiguration;
+import model.TetrisEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Monte Carlo evaluation of the placements, by number of workers.
+ *
+ * 'evaluate' plays a fixed number of playouts per candidate : its time measures
+ * the speedup of the workers. 'evaluateWithBudget' stops at a time budget, like
+ * a bot would : its 'playouts' counter (per millisecond) measures how many more
+ * playouts, hence how much better estimates, the workers give within a budget.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RolloutEvaluatorBenchmark {
+	/**
+	 * Time budget of 'evaluateWithBudget', in milliseconds.
+	 */
+	private static final long TIME_BUDGET = 20;
+
+	@Param({"1", "2", "4"})
+	public int parallelism;
+
+	@Param({"RANDOM", "GREEDY"})
+	public RolloutEvaluator.Playout playout;
+
+	private ForkJoinPool pool;
+	private TetrisEngine engine;
+	private RolloutEvaluator fixed;
+	private RolloutEvaluator budgeted;
+	private long seed = 0;
+
+	/**
+	 * Number of playouts played by 'evaluateWithBudget'.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Playouts {
+		public long playouts;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		pool = new ForkJoinPool(parallelism);
+		engine = new TetrisEngine(0, TetrisConfiguration.DEFAULT);
+		engine.start(42);
+		BoardFill.fill(engine.getBoard(), 25, 42);
+
+		fixed = new RolloutEvaluator(HeuristicWeights.DEFAULT, pool).setPlayout(playout).setPlayouts(8);
+		budgeted = new RolloutEvaluator(HeuristicWeights.DEFAULT, pool).setPlayout(playout)
+			.setPlayouts(4096).setTimeBudget(TIME_BUDGET);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public List<RolloutResult> evaluate() {
+		return fixed.evaluate(engine, ++seed);
+	}
+
+	@Benchmark
+	public List<RolloutResult> evaluateWithBudget(final Playouts counters) {
+		final List<RolloutResult> results = budgeted.evaluate(engine, ++seed);
+		for (final RolloutResult result : results) {
+			counters.playouts += result.playouts();
+		}
+		return results;
+	}
+
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import model.TetrisAction;
+import model.TetrisConfiguration;
+import org.openjdk.jmh.annotations.*;
+import simulation.VectorEnvironment;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the batched environment, to compare with EngineBenchmark.tick.
+ *
+ * Each invocation steps all the games once with random actions (drawn in
+ * advance), and restarts the lost games.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorEnvironmentBenchmark {
+
+	/**
+	 * Number of actions drawn in advance for each game.
+	 */
+	private static final int ACTION_ROUNDS = 1024;
+
+	@Param({"1", "64", "1024"})
+	public int games;
+
+	private VectorEnvironment environment;
+	private int[][] actions;
+	private int round = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		environment = new VectorEnvironment(games, TetrisConfiguration.DEFAULT);
+		final long[] seeds = new long[games];
+		for (int i = 0; i < games; i++) {
+			seeds[i] = 42 + i;
+		}
+		environment.reset(seeds);
+
+		final Random random = new Random(42);
+		actions = new int[ACTION_ROUNDS][games];
+		for (final int[] roundActions : actions) {
+			for (int i = 0; i < games; i++) {
+				roundActions[i] = random.nextInt(TetrisAction.values().length);
+			}
+		}
+	}
+
+	@Benchmark
+	public int[] step() {
+		environment.step(actions[round]);
+		round = (round + 1) & (ACTION_ROUNDS - 1);
+		for (int i = 0; i < games; i++) {
+			if (environment.isGameOver(i)) environment.reset(i, round + i);
+		}
+		return environment.getObservations();
+	}
+
+}
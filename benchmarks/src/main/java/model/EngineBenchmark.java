@@ -0,0 +1,79 @@
+package model;
+
+import benchmark.BoardFill;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the TetrisEngine hot paths.
+ *
+ * This class lives in the 'model' package to reach the package-private
+ * moveCurrentTetrimino and generateNewTetrimino methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+	/**
+	 * Percentage of the rows of the board filled with random blocks.
+	 */
+	@Param({"0", "25", "50", "75"})
+	public int fillLevel;
+
+	private TetrisEngine engine;
+	private int direction = 1;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		engine = new TetrisEngine(42);
+		engine.start();
+		BoardFill.fill(engine.getBoard(), fillLevel, 42);
+	}
+
+	/**
+	 * Move the current tetrimino sideways, back and forth.
+	 */
+	@Benchmark
+	public boolean moveCurrentTetrimino() {
+		direction = -direction;
+		return engine.moveCurrentTetrimino(direction, 0);
+	}
+
+	/**
+	 * Rotate the current tetrimino with wall kicks, back and forth.
+	 */
+	@Benchmark
+	public boolean rotate() {
+		direction = -direction;
+		return engine.rotate(direction > 0);
+	}
+
+	/**
+	 * Spawn a new tetrimino at the top of the board.
+	 */
+	@Benchmark
+	public Tetrimino generateNewTetrimino() {
+		engine.generateNewTetrimino();
+		return engine.getCurrentTetrimino();
+	}
+
+	/**
+	 * Play complete games, one tick per invocation, without any player input.
+	 * Each game starts on a board filled again to the fill level.
+	 */
+	@Benchmark
+	public boolean tick() {
+		if (engine.tick()) {
+			engine.start();
+			BoardFill.fill(engine.getBoard(), fillLevel, 42);
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -1,17 +1,71 @@
+import ai.BotInputPolicy;
+import ai.GeneticTuner;
 import control.TetrisController;
+import log.EventLevel;
+import log.EventLog;
 import model.TetrisModel;
+import replay.ReplayEngine;
+import simulation.BatchSimulator;
 import view.TetrisView;
 import view.TetrisWindow;
 import view.screens.MainMenuScreen;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
 public class Main {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		// headless batch mode : --batch [games] [seed] [parallelism] [random|bot]
+		if (args.length > 0 && args[0].equals("--batch")) {
+			final String[] batchArgs = Arrays.copyOfRange(args, 1, Math.min(args.length, 4));
+			if (args.length > 4 && args[4].equals("bot")) {
+				BotInputPolicy.main(batchArgs);
+			} else {
+				BatchSimulator.main(batchArgs);
+			}
+			return;
+		}
+
+		// headless tuning mode : --tune [generations] [population] [games] [seed] [checkpoint file]
+		if (args.length > 0 && args[0].equals("--tune")) {
+			GeneticTuner.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
+		// headless replay mode : --replay file [repetitions]
+		if (args.length > 0 && args[0].equals("--replay")) {
+			ReplayEngine.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
+		// options of the interactive game
+		File recordingFile = null;
+		boolean activeRendering = false;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			// game events logging : --log <debug|info|warning|error>
+			case "--log":
+				EventLog.get().enable(EventLevel.valueOf(args[i + 1].toUpperCase()), System.out);
+				break;
+			// game recording : --record file
+			case "--record":
+				recordingFile = new File(args[i + 1]);
+				break;
+			// rendering mode : --rendering <passive|active>
+			case "--rendering":
+				activeRendering = args[i + 1].equals("active");
+				break;
+			}
+		}
+
 		TetrisModel model = new TetrisModel();
 		TetrisController controller = new TetrisController(model);
+		controller.setRecordingFile(recordingFile);
 		MainMenuScreen menuScreen = new MainMenuScreen(controller);
 
-		TetrisView view = new TetrisView(menuScreen);
+		TetrisView view = new TetrisView(menuScreen, model.getConfiguration(), activeRendering);
 		TetrisWindow window = new TetrisWindow(view);
 
 		window.displayGame();
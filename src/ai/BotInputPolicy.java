@@ -0,0 +1,87 @@
+package ai;
+
+import model.TetrisAction;
+import model.TetrisEngine;
+import simulation.BatchSimulator;
+import simulation.InputPolicy;
+import simulation.InputPolicyFactory;
+
+import java.util.List;
+
+/**
+ * Input policy of the simulated games playing the placements of a PlacementSearch.
+ *
+ * The inputs of each placement are performed as soon as the tetrimino spawns,
+ * then it is hard dropped. A tick moves the tetrimino down like a soft drop :
+ * when the inputs span several ticks, the soft drops of the path are skipped
+ * for each elapsed tick.
+ */
+public class BotInputPolicy implements InputPolicy {
+	private final PlacementSearch search;
+
+	private int plannedTetrimino = -1;
+	private List<TetrisAction> plan = null;
+	private int planIndex = 0;
+	private int planTick = 0;
+
+	/**
+	 * @param search Search of the placements (it can be shared by several policies).
+	 */
+	public BotInputPolicy(final PlacementSearch search) {
+		if (search == null)
+			throw new IllegalArgumentException("BotInputPolicy : null PlacementSearch.");
+		this.search = search;
+	}
+
+	/**
+	 * Get a factory of policies sharing the given search.
+	 */
+	public static InputPolicyFactory factory(final PlacementSearch search) {
+		return new InputPolicyFactory() {
+			@Override
+			public InputPolicy create(final long seed) {
+				return new BotInputPolicy(search);
+			}
+		};
+	}
+
+	@Override
+	public void reset(final TetrisEngine engine) {
+		plannedTetrimino = -1;
+		plan = null;
+	}
+
+	@Override
+	public TetrisAction nextAction(final TetrisEngine engine) {
+		if (engine.getTetriminosSpawned() != plannedTetrimino) {
+			plannedTetrimino = engine.getTetriminosSpawned();
+			final Placement placement = search.search(engine.getBoard(), engine.getCurrentTetrimino(),
+													  engine.getNextTetriminoType());
+			plan = placement == null ? null : placement.actions();
+			planIndex = 0;
+			planTick = engine.getTicks();
+		}
+
+		if (plan != null) {
+			while (planIndex < plan.size() && plan.get(planIndex) == TetrisAction.SOFT_DROP
+				   && planTick < engine.getTicks()) {
+				++planIndex;
+				++planTick;
+			}
+			if (planIndex < plan.size()) return plan.get(planIndex++);
+		}
+		return TetrisAction.HARD_DROP;
+	}
+
+	/**
+	 * <pre>
+	 * Command line entry point of the batch mode, with the bot's inputs.
+	 *
+	 * Arguments : [games] [seed] [parallelism]
+	 * </pre>
+	 */
+	public static void main(final String[] args) {
+		BatchSimulator.runCommandLine(args, factory(new PlacementSearch(HeuristicWeights.DEFAULT)));
+	}
+
+}
@@ -0,0 +1,432 @@
+package ai;
+
+import model.TetrisConfiguration;
+import simulation.BatchSimulator;
+import simulation.BatchStatistics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tunes the HeuristicWeights of the bot with a genetic algorithm.
+ *
+ * Each generation, every individual of the population plays the same batch of
+ * seeded games with a greedy bot (no lookahead) on a BatchSimulator, and its
+ * fitness is its mean number of lines cleared. The next generation keeps the
+ * best individuals and is completed by the children of tournament-selected
+ * parents : the fitness-weighted average of their weights, sometimes mutated.
+ * The weights are kept normalized, since only their direction matters.
+ *
+ * The random decisions of a generation only depend on the seed of the run and
+ * on the generation number, so a run resumed from its checkpoint file (written
+ * after each generation) continues exactly like the interrupted one.
+ */
+public class GeneticTuner {
+	/**
+	 * Format version of the checkpoint files.
+	 */
+	private static final int CHECKPOINT_VERSION = 1;
+	private static final String CHECKPOINT_MAGIC = "tetris-tuner";
+
+	/**
+	 * Number of weights of an individual.
+	 */
+	private static final int GENES = 4;
+
+	private final ForkJoinPool pool;
+
+	private TetrisConfiguration configuration = TetrisConfiguration.DEFAULT;
+	private int populationSize = 50;
+	private int gamesPerEvaluation = 20;
+	private int maxTicks = 20_000;
+	private int eliteCount = 5;
+	private int tournamentSize = 5;
+	private double mutationRate = 0.1;
+	private double mutationScale = 0.2;
+	private File checkpointFile = null;
+
+	/**
+	 * State of the run : the population of the next generation to evaluate.
+	 */
+	private long seed;
+	private int generation = 0;
+	private double[][] population = null;
+
+	/**
+	 * The individuals of the last evaluated generation, best first.
+	 */
+	private double[][] ranked = null;
+	private double[] rankedFitness = null;
+
+	/**
+	 * Create a tuner running its games on the common fork/join pool.
+	 */
+	public GeneticTuner(final long seed) {
+		this(seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param seed Seed of the run.
+	 * @param pool Pool playing the games.
+	 */
+	public GeneticTuner(final long seed, final ForkJoinPool pool) {
+		if (pool == null)
+			throw new IllegalArgumentException("GeneticTuner : null ForkJoinPool.");
+		this.seed = seed;
+		this.pool = pool;
+	}
+
+	/**
+	 * Set the rules of the games played by the individuals.
+	 */
+	public GeneticTuner setConfiguration(final TetrisConfiguration configuration) {
+		if (configuration == null)
+			throw new IllegalArgumentException("GeneticTuner : null TetrisConfiguration.");
+		this.configuration = configuration;
+		return this;
+	}
+
+	/**
+	 * Set the size of the population. It can't be changed once the run started.
+	 */
+	public GeneticTuner setPopulationSize(final int populationSize) {
+		if (populationSize < 2)
+			throw new IllegalArgumentException("GeneticTuner : populationSize must be >= 2.");
+		if (population != null)
+			throw new IllegalStateException("GeneticTuner : the run already started.");
+		this.populationSize = populationSize;
+		return this;
+	}
+
+	/**
+	 * Set the number of games played by each individual of a generation.
+	 */
+	public GeneticTuner setGamesPerEvaluation(final int gamesPerEvaluation) {
+		if (gamesPerEvaluation <= 0)
+			throw new IllegalArgumentException("GeneticTuner : gamesPerEvaluation must be > 0.");
+		this.gamesPerEvaluation = gamesPerEvaluation;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of ticks of a game, which bounds the fitness of the
+	 * individuals that never lose.
+	 */
+	public GeneticTuner setMaxTicks(final int maxTicks) {
+		if (maxTicks <= 0)
+			throw new IllegalArgumentException("GeneticTuner : maxTicks must be > 0.");
+		this.maxTicks = maxTicks;
+		return this;
+	}
+
+	/**
+	 * Set the number of best individuals copied unchanged into the next generation.
+	 */
+	public GeneticTuner setEliteCount(final int eliteCount) {
+		if (eliteCount < 0)
+			throw new IllegalArgumentException("GeneticTuner : eliteCount must be >= 0.");
+		this.eliteCount = eliteCount;
+		return this;
+	}
+
+	/**
+	 * Set the number of individuals competing for each parent selection.
+	 */
+	public GeneticTuner setTournamentSize(final int tournamentSize) {
+		if (tournamentSize <= 0)
+			throw new IllegalArgumentException("GeneticTuner : tournamentSize must be > 0.");
+		this.tournamentSize = tournamentSize;
+		return this;
+	}
+
+	/**
+	 * Set the mutations of the children.
+	 * @param rate Probability that a child is mutated.
+	 * @param scale Maximum change of the mutated weight.
+	 */
+	public GeneticTuner setMutation(final double rate, final double scale) {
+		if (rate < 0 || rate > 1)
+			throw new IllegalArgumentException("GeneticTuner : the mutation rate must be between 0 and 1.");
+		if (scale < 0)
+			throw new IllegalArgumentException("GeneticTuner : negative mutation scale.");
+		this.mutationRate = rate;
+		this.mutationScale = scale;
+		return this;
+	}
+
+	/**
+	 * Set the file the state of the run is saved to after each generation (null for none).
+	 */
+	public GeneticTuner setCheckpointFile(final File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+		return this;
+	}
+
+	/**
+	 * Get the number of generations evaluated so far.
+	 */
+	public int getGeneration() { return generation; }
+
+	/**
+	 * Get the best individual of the last evaluated generation (null before the first one).
+	 */
+	public HeuristicWeights getBest() { return ranked == null ? null : toWeights(ranked[0]); }
+
+	/**
+	 * Get the fitness of the best individual of the last evaluated generation.
+	 */
+	public double getBestFitness() { return rankedFitness == null ? Double.NaN : rankedFitness[0]; }
+
+	/**
+	 * Evaluate the current generation and breed the next one, then save the checkpoint.
+	 */
+	public void step() throws IOException {
+		if (population == null) population = initialPopulation();
+
+		// every individual plays the same games
+		final long batchSeed = BatchSimulator.gameSeed(seed, generation);
+		final double[] fitness = new double[population.length];
+		for (int i = 0; i < population.length; i++) {
+			fitness[i] = evaluate(toWeights(population[i]), batchSeed);
+		}
+
+		final Integer[] order = new Integer[population.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer a, final Integer b) {
+				return Double.compare(fitness[b], fitness[a]);
+			}
+		});
+		ranked = new double[population.length][];
+		rankedFitness = new double[population.length];
+		for (int i = 0; i < order.length; i++) {
+			ranked[i] = population[order[i]];
+			rankedFitness[i] = fitness[order[i]];
+		}
+
+		population = breed(new SplittableRandom(BatchSimulator.gameSeed(~seed, generation)));
+		++generation;
+		if (checkpointFile != null) saveCheckpoint(checkpointFile);
+	}
+
+	/**
+	 * Play the games of a generation with the given weights.
+	 * @return The fitness of the weights.
+	 */
+	public double evaluate(final HeuristicWeights weights, final long batchSeed) {
+		final BatchSimulator simulator = new BatchSimulator(
+			BotInputPolicy.factory(new PlacementSearch(weights).setLookahead(false)), pool);
+		simulator.setConfiguration(configuration).setMaxTicks(maxTicks);
+		final BatchStatistics statistics = simulator.run(gamesPerEvaluation, batchSeed);
+		return statistics.meanLinesCleared();
+	}
+
+	/**
+	 * Create the next generation from the ranked individuals.
+	 */
+	private double[][] breed(final SplittableRandom random) {
+		final double[][] next = new double[populationSize][];
+		final int elite = Math.min(eliteCount, populationSize);
+		for (int i = 0; i < elite; i++) {
+			next[i] = ranked[i];
+		}
+
+		for (int i = elite; i < populationSize; i++) {
+			final int a = select(random), b = select(random);
+
+			// weighted average of the parents, the fitter one weighing more
+			final double fa = Math.max(rankedFitness[a], 0), fb = Math.max(rankedFitness[b], 0);
+			final double wa = fa + fb > 0 ? fa / (fa + fb) : 0.5;
+			final double[] child = new double[GENES];
+			for (int g = 0; g < GENES; g++) {
+				child[g] = wa * ranked[a][g] + (1 - wa) * ranked[b][g];
+			}
+
+			if (random.nextDouble() < mutationRate) {
+				child[random.nextInt(GENES)] += (random.nextDouble() * 2 - 1) * mutationScale;
+			}
+			next[i] = normalize(child);
+		}
+		return next;
+	}
+
+	/**
+	 * Select a parent by tournament.
+	 * @return The rank of the parent.
+	 */
+	private int select(final SplittableRandom random) {
+		int best = ranked.length;
+		for (int i = 0; i < tournamentSize; i++) {
+			best = Math.min(best, random.nextInt(ranked.length));
+		}
+		return best;
+	}
+
+	/**
+	 * Create a population of random directions, including the default weights.
+	 */
+	private double[][] initialPopulation() {
+		final SplittableRandom random = new SplittableRandom(seed);
+		final double[][] initial = new double[populationSize][];
+		initial[0] = normalize(toGenes(HeuristicWeights.DEFAULT));
+		for (int i = 1; i < populationSize; i++) {
+			final double[] genes = new double[GENES];
+			for (int g = 0; g < GENES; g++) {
+				genes[g] = random.nextDouble() * 2 - 1;
+			}
+			initial[i] = normalize(genes);
+		}
+		return initial;
+	}
+
+	private static double[] normalize(final double[] genes) {
+		double norm = 0;
+		for (final double gene : genes) {
+			norm += gene * gene;
+		}
+		norm = Math.sqrt(norm);
+		if (norm == 0) return genes;
+		for (int g = 0; g < genes.length; g++) {
+			genes[g] /= norm;
+		}
+		return genes;
+	}
+
+	private static double[] toGenes(final HeuristicWeights weights) {
+		return new double[] { weights.aggregateHeight(), weights.holes(), weights.bumpiness(), weights.lines() };
+	}
+
+	private static HeuristicWeights toWeights(final double[] genes) {
+		return new HeuristicWeights(genes[0], genes[1], genes[2], genes[3]);
+	}
+
+	/**
+	 * Save the state of the run.
+	 *
+	 * The checkpoint is written to a temporary file which then replaces the
+	 * previous one, so that an interruption never leaves a truncated checkpoint.
+	 */
+	public void saveCheckpoint(final File file) throws IOException {
+		final File directory = file.getAbsoluteFile().getParentFile();
+		final File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+		try {
+			try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+					Files.newOutputStream(temporary.toPath()), StandardCharsets.UTF_8))) {
+				writer.write(String.format("%s %d\n", CHECKPOINT_MAGIC, CHECKPOINT_VERSION));
+				writer.write(String.format("%d %d %d\n", seed, generation, population.length));
+				for (final double[] genes : population) {
+					writer.write(String.format("%s %s %s %s\n", Double.toString(genes[0]), Double.toString(genes[1]),
+											   Double.toString(genes[2]), Double.toString(genes[3])));
+				}
+			}
+
+			final Path source = temporary.toPath(), target = file.toPath();
+			try {
+				Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary.toPath());
+		}
+	}
+
+	/**
+	 * Resume a run from its checkpoint. The seed and the population of the run
+	 * replace the current ones.
+	 *
+	 * @throws IOException If the file could not be read or is not a valid checkpoint.
+	 */
+	public void loadCheckpoint(final File file) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				Files.newInputStream(file.toPath()), StandardCharsets.UTF_8))) {
+			final String[] header = fields(reader, 2);
+			if (!header[0].equals(CHECKPOINT_MAGIC))
+				throw new IOException("GeneticTuner.loadCheckpoint : not a tuner checkpoint.");
+			if (Integer.parseInt(header[1]) != CHECKPOINT_VERSION)
+				throw new IOException(String.format("GeneticTuner.loadCheckpoint : unsupported version %s.", header[1]));
+
+			final String[] state = fields(reader, 3);
+			final long loadedSeed = Long.parseLong(state[0]);
+			final int loadedGeneration = Integer.parseInt(state[1]);
+			final int size = Integer.parseInt(state[2]);
+			if (loadedGeneration < 0 || size < 2)
+				throw new IOException("GeneticTuner.loadCheckpoint : corrupted checkpoint.");
+
+			final double[][] loaded = new double[size][GENES];
+			for (int i = 0; i < size; i++) {
+				final String[] genes = fields(reader, GENES);
+				for (int g = 0; g < GENES; g++) {
+					loaded[i][g] = Double.parseDouble(genes[g]);
+				}
+			}
+
+			seed = loadedSeed;
+			generation = loadedGeneration;
+			population = loaded;
+			populationSize = size;
+			ranked = null;
+			rankedFitness = null;
+		} catch (NumberFormatException e) {
+			throw new IOException("GeneticTuner.loadCheckpoint : corrupted checkpoint.", e);
+		}
+	}
+
+	private static String[] fields(final BufferedReader reader, final int count) throws IOException {
+		final String line = reader.readLine();
+		final String[] fields = line == null ? new String[0] : line.trim().split(" ");
+		if (fields.length != count)
+			throw new IOException("GeneticTuner.loadCheckpoint : truncated checkpoint.");
+		return fields;
+	}
+
+	/**
+	 * <pre>
+	 * Command line entry point of the tuning mode.
+	 *
+	 * Arguments : [generations] [population] [games] [seed] [checkpoint file]
+	 * An existing checkpoint file is resumed (its seed and population prevail).
+	 * </pre>
+	 */
+	public static void main(final String[] args) throws IOException {
+		final int generations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		final int populationSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		final int games = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		final long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+		final File checkpoint = args.length > 4 ? new File(args[4]) : null;
+
+		final GeneticTuner tuner = new GeneticTuner(seed)
+			.setPopulationSize(populationSize)
+			.setGamesPerEvaluation(games)
+			.setCheckpointFile(checkpoint);
+		if (checkpoint != null && checkpoint.exists()) {
+			tuner.loadCheckpoint(checkpoint);
+			System.out.format("Resumed %s at generation %d.\n", checkpoint, tuner.getGeneration());
+		}
+
+		while (tuner.getGeneration() < generations) {
+			final long start = System.nanoTime();
+			tuner.step();
+			System.out.format("generation %d : best fitness %.2f lines (%s), %.1f s\n",
+							  tuner.getGeneration() - 1, tuner.getBestFitness(), tuner.getBest(),
+							  (System.nanoTime() - start) / 1e9);
+		}
+	}
+
+}
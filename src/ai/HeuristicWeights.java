@@ -0,0 +1,62 @@
+package ai;
+
+import model.TetrisBoard;
+
+/**
+ * The weights of the features of the heuristic evaluating a board.
+ *
+ * The value of a board is the weighted sum of its aggregate height (sum of the
+ * column heights), its number of holes (empty cells below a block), its
+ * bumpiness (sum of the height differences between adjacent columns) and the
+ * number of lines cleared to reach it. Higher is better.
+ */
+public final class HeuristicWeights {
+	/**
+	 * Weights known to play well on a standard board.
+	 */
+	public static final HeuristicWeights DEFAULT = new HeuristicWeights(-0.510066, -0.35663, -0.184483, 0.760666);
+
+	private final double aggregateHeight;
+	private final double holes;
+	private final double bumpiness;
+	private final double lines;
+
+	public HeuristicWeights(final double aggregateHeight, final double holes,
+							final double bumpiness, final double lines) {
+		this.aggregateHeight = aggregateHeight;
+		this.holes = holes;
+		this.bumpiness = bumpiness;
+		this.lines = lines;
+	}
+
+	public double aggregateHeight() { return aggregateHeight; }
+	public double holes() { return holes; }
+	public double bumpiness() { return bumpiness; }
+	public double lines() { return lines; }
+
+	/**
+	 * Evaluate a board from its skyline.
+	 * @param board The board.
+	 * @param linesCleared Number of lines cleared to reach the board.
+	 * @return The value of the board (higher is better).
+	 */
+	public double evaluate(final TetrisBoard board, final int linesCleared) {
+		return evaluate(board.getAggregateHeight(), board.getHoles(), board.getBumpiness(), linesCleared);
+	}
+
+	/**
+	 * Evaluate a board from its features.
+	 * @return The value of the board (higher is better).
+	 */
+	public double evaluate(final int aggregateHeight, final int holes, final int bumpiness, final int linesCleared) {
+		return this.aggregateHeight * aggregateHeight + this.holes * holes
+			+ this.bumpiness * bumpiness + lines * linesCleared;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("height %.4f, holes %.4f, bumpiness %.4f, lines %.4f",
+							 aggregateHeight, holes, bumpiness, lines);
+	}
+
+}
@@ -0,0 +1,78 @@
+package ai;
+
+import model.TetriminoType;
+import model.TetrisAction;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A final position of a tetrimino found by a PlacementSearch, along with the
+ * inputs leading to it from the position of the tetrimino when it was searched.
+ */
+public final class Placement {
+	private final TetriminoType type;
+	private final int rotation, x, y;
+	private final int lines;
+
+	/**
+	 * Value of the placement : heuristic value of the resulting board, or of the
+	 * best board reachable with the next tetrimino once deepened (for a
+	 * RolloutEvaluator, mean value of its playouts).
+	 */
+	double value;
+	boolean deepened = false;
+
+	/**
+	 * Index of the placement in the ReachabilitySearch which found it.
+	 */
+	final int index;
+
+	/**
+	 * Shortest sequence of inputs leading to the placement, without the final
+	 * soft drops (only set for the chosen placement).
+	 */
+	List<TetrisAction> actions = null;
+
+	Placement(final TetriminoType type, final int index,
+			  final int rotation, final int x, final int y, final int lines, final double value) {
+		this.type = type;
+		this.index = index;
+		this.rotation = rotation;
+		this.x = x;
+		this.y = y;
+		this.lines = lines;
+		this.value = value;
+	}
+
+	/**
+	 * Get the shortest sequence of inputs (rotations, horizontal movements and
+	 * soft drops) leading above the placement. The tetrimino must then be hard
+	 * dropped, or let fall, to be added to the board.
+	 */
+	public List<TetrisAction> actions() { return Collections.unmodifiableList(actions); }
+
+	public TetriminoType type() { return type; }
+	public int rotation() { return rotation; }
+	public int x() { return x; }
+	public int y() { return y; }
+
+	/**
+	 * Number of lines cleared by the placement.
+	 */
+	public int lines() { return lines; }
+
+	public double value() { return value; }
+
+	/**
+	 * True if the value takes the next tetrimino into account.
+	 */
+	public boolean deepened() { return deepened; }
+
+	@Override
+	public String toString() {
+		return String.format("%s rotation %d at (%d, %d) : %d lines, value %.3f%s",
+							 type, rotation, x, y, lines, value, deepened ? " (deepened)" : "");
+	}
+
+}
@@ -0,0 +1,433 @@
+package ai;
+
+import model.Tetrimino;
+import model.TetriminoShape;
+import model.TetriminoType;
+import model.TetrisAction;
+import model.TetrisBoard;
+import model.TetrisRules;
+import model.Zobrist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the best final placement of a tetrimino.
+ *
+ * Every placement reachable by the tetrimino (found by a ReachabilitySearch) is
+ * evaluated with a HeuristicWeights. The placements clearing no line are
+ * evaluated by updating the skyline maintained by the board for the columns of
+ * the tetrimino only ; the others on a copy of the row masks of the board.
+ * The best candidates are then deepened : they are valued by the best placement
+ * of the next tetrimino on the resulting board, where only the placements
+ * reachable by rotating, moving horizontally and dropping it are considered.
+ *
+ * The deepening runs in parallel on a fork/join pool (when given one) and
+ * stops when the time budget is spent, the candidates being deepened from the
+ * most promising one. A PlacementSearch has no mutable state during a search,
+ * so an instance can be shared by concurrent games.
+ *
+ * The evaluations of the placements can be cached in a TranspositionTable,
+ * keyed by the hash of the board, the type of the tetrimino and its blocks :
+ * the placements of the next tetrimino evaluated by the deepening of the
+ * chosen candidate are the ones evaluated first by the next search, and the
+ * symmetrical rotations of a tetrimino cover the same blocks. With the default
+ * heuristic, an evaluation from the skyline costs less than a probe of the
+ * table, so the bots search without it.
+ */
+public class PlacementSearch {
+	private static final Comparator<Placement> BEST_FIRST = new Comparator<Placement>() {
+		@Override
+		public int compare(final Placement a, final Placement b) {
+			return Double.compare(b.value, a.value);
+		}
+	};
+
+	private final HeuristicWeights weights;
+	private final ForkJoinPool pool;
+
+	private long timeBudgetNanos = 0;
+	private boolean lookahead = true;
+	private TranspositionTable table = null;
+
+	/**
+	 * Reachability search of each thread, reused while the board size doesn't change.
+	 */
+	private final ThreadLocal<ReachabilitySearch> reachability = new ThreadLocal<ReachabilitySearch>();
+
+	/**
+	 * Create a search running on the calling thread.
+	 */
+	public PlacementSearch(final HeuristicWeights weights) {
+		this(weights, null);
+	}
+
+	/**
+	 * @param weights Weights of the evaluation of the boards.
+	 * @param pool Pool deepening the candidates in parallel (null to search on the calling thread).
+	 */
+	public PlacementSearch(final HeuristicWeights weights, final ForkJoinPool pool) {
+		if (weights == null)
+			throw new IllegalArgumentException("PlacementSearch : null HeuristicWeights.");
+		this.weights = weights;
+		this.pool = pool;
+	}
+
+	/**
+	 * Set the maximum duration of the deepening of a search (0 for no limit).
+	 *
+	 * With a limit, the result of a search depends on the speed of the machine.
+	 */
+	public PlacementSearch setTimeBudget(final long milliseconds) {
+		if (milliseconds < 0)
+			throw new IllegalArgumentException("PlacementSearch : negative time budget.");
+		timeBudgetNanos = milliseconds * 1_000_000;
+		return this;
+	}
+
+	/**
+	 * Enable or disable the deepening with the next tetrimino.
+	 */
+	public PlacementSearch setLookahead(final boolean lookahead) {
+		this.lookahead = lookahead;
+		return this;
+	}
+
+	/**
+	 * Set the cache of the evaluations of the placements (null to disable the
+	 * cache). The cached values are rounded to floats.
+	 */
+	public PlacementSearch setTranspositionTable(final TranspositionTable table) {
+		this.table = table;
+		return this;
+	}
+
+	public HeuristicWeights getWeights() { return weights; }
+	public TranspositionTable getTranspositionTable() { return table; }
+
+	/**
+	 * Find the best placement of a tetrimino.
+	 *
+	 * @param board The board the tetrimino is played on.
+	 * @param tetrimino The tetrimino, at its current position and rotation.
+	 * @param nextType Type of the next tetrimino (null if unknown).
+	 * @return The best placement, or null if the tetrimino can't move anywhere.
+	 */
+	public Placement search(final TetrisBoard board, final Tetrimino tetrimino, final TetriminoType nextType) {
+		final long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+		if (table != null) table.newSearch();
+
+		final int width = board.getWidth(), height = board.getHeight();
+		final int[] rows = new int[height];
+		for (int y = 0; y < height; y++) {
+			rows[y] = board.getRow(y);
+		}
+
+		// evaluate all the reachable placements
+		final ReachabilitySearch reach = reachabilitySearch(width, height);
+		final TetriminoType type = tetrimino.getType();
+		final int count = reach.search(rows, type, tetrimino.getRotation(), tetrimino.getX(), tetrimino.getY());
+		if (count == 0) return null;
+
+		final Scratch scratch = new Scratch(width, height);
+		scratch.skyline.set(board);
+		final List<Placement> candidates = new ArrayList<Placement>(count);
+		for (int i = 0; i < count; i++) {
+			final int rotation = reach.rotation(i), x = reach.x(i), y = reach.y(i);
+			final TetriminoShape shape = TetriminoShape.get(type, rotation);
+			final int lines = completeLines(rows, width, shape, x, y);
+			final double value = evaluate(rows, board.getHash(), width, shape, x, y, lines, scratch);
+			candidates.add(new Placement(type, i, rotation, x, y, lines, value));
+		}
+
+		if (lookahead && nextType != null) {
+			Collections.sort(candidates, BEST_FIRST);
+			final DeepeningTask task = new DeepeningTask(rows, board.getHash(), width, nextType,
+														 candidates, 0, candidates.size(), deadline);
+			if (pool == null) {
+				task.compute();
+			} else {
+				pool.invoke(task);
+			}
+		}
+
+		// the deepened values are only comparable between themselves
+		Placement best = null;
+		for (final Placement candidate : candidates) {
+			if (best == null || (candidate.deepened && !best.deepened)
+				|| (candidate.deepened == best.deepened && candidate.value > best.value))
+				best = candidate;
+		}
+		// the final soft drops are replaced by the hard drop
+		final List<TetrisAction> path = reach.path(best.index);
+		int length = path.size();
+		while (length > 0 && path.get(length - 1) == TetrisAction.SOFT_DROP) {
+			--length;
+		}
+		best.actions = path.subList(0, length);
+		return best;
+	}
+
+	private ReachabilitySearch reachabilitySearch(final int width, final int height) {
+		ReachabilitySearch search = reachability.get();
+		if (search == null || search.width() != width || search.height() != height) {
+			search = new ReachabilitySearch(width, height);
+			reachability.set(search);
+		}
+		return search;
+	}
+
+	/**
+	 * Evaluate the board resulting from a placement, or get its cached value.
+	 * @param hash Hash of the board.
+	 */
+	private double evaluate(final int[] rows, final long hash, final int width, final TetriminoShape shape,
+							final int x, final int y, final int lines, final Scratch scratch) {
+		if (table == null) return evaluateBoard(rows, width, shape, x, y, lines, scratch);
+
+		final long key = placementKey(hash, shape, x, y);
+		final float cached = table.probe(key);
+		if (cached == cached) return cached; // not NaN
+		// rounded like the cached values, so that the cache doesn't change the result
+		final float value = (float) evaluateBoard(rows, width, shape, x, y, lines, scratch);
+		table.store(key, value);
+		return value;
+	}
+
+	/**
+	 * Evaluate the board resulting from a placement : from the skyline of the
+	 * board (in the scratch) when no line is cleared, otherwise by scanning the
+	 * resulting board.
+	 */
+	private double evaluateBoard(final int[] rows, final int width, final TetriminoShape shape,
+								 final int x, final int y, final int lines, final Scratch scratch) {
+		if (lines == 0) return scratch.skyline.evaluate(weights, shape, x, y);
+		land(rows, width, shape, x, y, scratch.board);
+		scratch.landed.scan(scratch.board);
+		return scratch.landed.evaluate(weights, lines);
+	}
+
+	/**
+	 * Evaluate all the placements of a tetrimino reachable from a position by
+	 * rotating it, moving it horizontally and dropping it.
+	 * The scratch must contain the skyline of the board.
+	 *
+	 * @param hash Hash of the board.
+	 * @return The best value, or Double.NEGATIVE_INFINITY if no placement is reachable.
+	 */
+	private double explore(final int[] rows, final long hash, final int width, final TetriminoType type,
+						   final int rotation0, final int x0, final int y0, final Scratch scratch) {
+		double best = Double.NEGATIVE_INFINITY;
+		final int[] masks = scratch.masks;
+
+		int rotation = rotation0;
+		for (int k = 0; k < TetriminoShape.ROTATIONS; k++, rotation = (rotation + 1) & 3) {
+			final TetriminoShape shape = TetriminoShape.get(type, rotation);
+			if (!fits(rows, width, shape, x0, y0)) break; // the next rotations go through this one
+
+			// symmetrical shapes : skip the rotations already explored
+			masks[k] = shape.mask();
+			boolean explored = false;
+			for (int j = 0; j < k; j++) {
+				explored |= masks[j] == masks[k];
+			}
+			if (explored) continue;
+
+			// move to the left, then to the right, as long as possible
+			for (int direction = -1; direction <= 1; direction += 2) {
+				for (int x = direction < 0 ? x0 : x0 + 1; fits(rows, width, shape, x, y0); x += direction) {
+					int y = y0;
+					while (fits(rows, width, shape, x, y + 1)) {
+						++y;
+					}
+
+					final double value = evaluate(rows, hash, width, shape, x, y,
+												  completeLines(rows, width, shape, x, y), scratch);
+					if (value > best) best = value;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Value a placement by the best placement of the next tetrimino on the
+	 * resulting board, spawned as the TetrisEngine would.
+	 */
+	private double deepen(final int[] rows, final long hash, final int width, final TetriminoType nextType,
+						  final Placement placement, final Scratch scratch) {
+		final int[] after = scratch.after;
+		final TetriminoShape shape = TetriminoShape.get(placement.type(), placement.rotation());
+		final int lines = land(rows, width, shape, placement.x(), placement.y(), after);
+
+		// the hash of the resulting board only keys the cached evaluations
+		final long afterHash = table != null ? hashAfter(hash, shape, placement, lines, after) : 0;
+
+		// the lines of the first placement count as well
+		return bestNextValue(after, afterHash, width, nextType, scratch) + weights.lines() * lines;
+	}
+
+	/**
+	 * Get the value of the best placement of a tetrimino spawned on a board as
+	 * the TetrisEngine would.
+	 */
+	private double bestNextValue(final int[] after, final long afterHash, final int width,
+								 final TetriminoType nextType, final Scratch scratch) {
+		final TetriminoShape spawnShape = TetriminoShape.get(nextType, 0);
+		int spawnX = -1;
+		for (int attempt = 0; attempt < TetrisRules.spawnAttempts(width) && spawnX < 0; attempt++) {
+			final int x = TetrisRules.spawnColumn(width, attempt);
+			if (fits(after, width, spawnShape, x, 0)) spawnX = x;
+		}
+		if (spawnX < 0) return Double.NEGATIVE_INFINITY; // game over
+
+		scratch.skyline.scan(after);
+		return explore(after, afterHash, width, nextType, 0, spawnX, 0, scratch);
+	}
+
+	/**
+	 * Get the hash of the board resulting from a placement : the blocks of the
+	 * tetrimino are added to the hash of the board, unless lines were cleared.
+	 */
+	private static long hashAfter(final long hash, final TetriminoShape shape, final Placement placement,
+								  final int lines, final int[] after) {
+		if (lines > 0) {
+			long key = 0;
+			for (int y = 0; y < after.length; y++) {
+				key ^= Zobrist.rowKey(after[y], y);
+			}
+			return key;
+		}
+
+		long key = hash;
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			key ^= Zobrist.cellKey(placement.x() + shape.blockX(i), placement.y() + shape.blockY(i));
+		}
+		return key;
+	}
+
+	/**
+	 * Get the key of a placement in the cache : the hash of the board, the type
+	 * of the tetrimino and the keys of its blocks.
+	 */
+	private static long placementKey(final long hash, final TetriminoShape shape, final int x, final int y) {
+		long key = hash ^ Zobrist.typeKey(shape.type());
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			key ^= Zobrist.cellKey(x + shape.blockX(i), y + shape.blockY(i));
+		}
+		return key;
+	}
+
+	/**
+	 * Check if a shape fits at the given position on the board.
+	 */
+	static boolean fits(final int[] rows, final int width, final TetriminoShape shape, final int posX, final int posY) {
+		return TetrisRules.fits(rows, 0, width, rows.length, shape, posX, posY);
+	}
+
+	/**
+	 * Get the number of lines a shape would complete at the given position.
+	 */
+	static int completeLines(final int[] rows, final int width, final TetriminoShape shape,
+							 final int posX, final int posY) {
+		final int full = (1 << width) - 1;
+		int complete = 0;
+		for (int j = shape.minY(); j <= shape.maxY(); j++) {
+			if ((rows[posY + j] | TetrisRules.shiftedRowMask(shape, j, posX)) == full) ++complete;
+		}
+		return complete;
+	}
+
+	/**
+	 * Add a shape to a copy of the board and clear the complete lines.
+	 *
+	 * @param out Array receiving the resulting board.
+	 * @return The number of lines cleared.
+	 */
+	static int land(final int[] rows, final int width, final TetriminoShape shape,
+					final int posX, final int posY, final int[] out) {
+		final int height = rows.length;
+		System.arraycopy(rows, 0, out, 0, height);
+
+		// the complete lines can only be the ones of the shape
+		final int full = (1 << width) - 1;
+		int complete = 0;
+		for (int j = shape.minY(); j <= shape.maxY(); j++) {
+			out[posY + j] |= TetrisRules.shiftedRowMask(shape, j, posX);
+			if (out[posY + j] == full) ++complete;
+		}
+		if (complete == 0) return 0;
+
+		return TetrisRules.clearLines(out, 0, height, full);
+	}
+
+	/**
+	 * Working arrays of a thread.
+	 */
+	private static final class Scratch {
+		final int[] board, after;
+		final int[] masks = new int[TetriminoShape.ROTATIONS];
+
+		/**
+		 * Skyline of the explored board, and of a board after a line clear.
+		 */
+		final Skyline skyline, landed;
+
+		Scratch(final int width, final int height) {
+			board = new int[height];
+			after = new int[height];
+			skyline = new Skyline(width, height);
+			landed = new Skyline(width, height);
+		}
+	}
+
+	/**
+	 * Deepens the candidates of indices [from, to), splitting the range between
+	 * several workers.
+	 */
+	private class DeepeningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] rows;
+		private final long hash;
+		private final int width;
+		private final TetriminoType nextType;
+		private final List<Placement> candidates;
+		private final int from, to;
+		private final long deadline;
+
+		DeepeningTask(final int[] rows, final long hash, final int width, final TetriminoType nextType,
+					  final List<Placement> candidates, final int from, final int to, final long deadline) {
+			this.rows = rows;
+			this.hash = hash;
+			this.width = width;
+			this.nextType = nextType;
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected void compute() {
+			if (pool != null && to - from > 2) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new DeepeningTask(rows, hash, width, nextType, candidates, from, middle, deadline),
+						  new DeepeningTask(rows, hash, width, nextType, candidates, middle, to, deadline));
+				return;
+			}
+
+			final Scratch scratch = new Scratch(width, rows.length);
+			for (int i = from; i < to && System.nanoTime() < deadline; i++) {
+				final Placement candidate = candidates.get(i);
+				candidate.value = deepen(rows, hash, width, nextType, candidate, scratch);
+				candidate.deepened = true;
+			}
+		}
+	}
+
+}
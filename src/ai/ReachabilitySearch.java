@@ -0,0 +1,190 @@
+package ai;
+
+import model.TetriminoKicks;
+import model.TetriminoShape;
+import model.TetriminoType;
+import model.TetrisAction;
+import model.TetrisRules;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds all the placements a tetrimino can reach, with the shortest sequence of
+ * inputs leading to each of them.
+ *
+ * This is a breadth-first search over the (x, y, rotation) states of the
+ * tetrimino, whose edges are the LEFT, RIGHT, ROTATE and SOFT_DROP actions
+ * (the rotations trying the same wall kicks as the TetrisEngine). Unlike the
+ * drop from the top, it finds the placements reached by sliding under an
+ * overhang ('tucks') or by rotating at the bottom ('spins').
+ *
+ * The visited states are stored in a bitset and the search arrays are
+ * allocated once, for a given board size : an instance is not thread-safe.
+ */
+public class ReachabilitySearch {
+	/**
+	 * Margin of the state coordinates : a tetrimino may be at a negative position
+	 * when its shape doesn't start at the top left corner of its area.
+	 */
+	private static final int MARGIN = TetriminoShape.SIZE - 1;
+
+	private static final TetrisAction[] EDGES = {
+		TetrisAction.LEFT, TetrisAction.RIGHT, TetrisAction.ROTATE, TetrisAction.SOFT_DROP
+	};
+
+	private final int width, height;
+	private final int columns, rowsPerRotation;
+
+	private final long[] visited;
+	private final int[] queue;
+	private final int[] parents;
+	private final byte[] parentActions;
+
+	/**
+	 * The placements found by the last search : states, and keys of their occupied cells.
+	 */
+	private final int[] placements;
+	private final long[] placementKeys;
+	private int placementCount = 0;
+
+	public ReachabilitySearch(final int width, final int height) {
+		this.width = width;
+		this.height = height;
+		columns = width + MARGIN;
+		rowsPerRotation = height + MARGIN;
+
+		final int states = columns * rowsPerRotation * TetriminoShape.ROTATIONS;
+		visited = new long[(states + 63) >>> 6];
+		queue = new int[states];
+		parents = new int[states];
+		parentActions = new byte[states];
+		placements = new int[states];
+		placementKeys = new long[states];
+	}
+
+	/**
+	 * Find the placements reachable from a position.
+	 *
+	 * @param rows Row masks of the board, from top to bottom.
+	 * @param type Type of the tetrimino.
+	 * @param rotation Initial rotation index.
+	 * @param x Initial horizontal position.
+	 * @param y Initial vertical position, where the tetrimino must fit.
+	 * @return The number of placements found. Two placements never occupy the same cells.
+	 */
+	public int search(final int[] rows, final TetriminoType type, final int rotation, final int x, final int y) {
+		for (int i = 0; i < visited.length; i++) {
+			visited[i] = 0;
+		}
+		placementCount = 0;
+		if (!PlacementSearch.fits(rows, width, TetriminoShape.get(type, rotation), x, y)) return 0;
+
+		int head = 0, tail = 0;
+		final int start = state(rotation, x, y);
+		visit(start);
+		parents[start] = -1;
+		queue[tail++] = start;
+
+		while (head < tail) {
+			final int s = queue[head++];
+			final int r = rotationOf(s), sx = xOf(s), sy = yOf(s);
+			final TetriminoShape shape = TetriminoShape.get(type, r);
+
+			// lockable : the next soft drop adds the tetrimino to the board
+			if (!PlacementSearch.fits(rows, width, shape, sx, sy + 1)) addPlacement(s, shape, sx, sy);
+
+			for (int e = 0; e < EDGES.length; e++) {
+				int nr = r, nx = sx, ny = sy;
+				switch (EDGES[e]) {
+				case LEFT:
+					--nx;
+					break;
+				case RIGHT:
+					++nx;
+					break;
+				case SOFT_DROP:
+					++ny;
+					break;
+				default: // ROTATE
+					nr = (r + 1) & (TetriminoShape.ROTATIONS - 1);
+					final TetriminoShape rotated = TetriminoShape.get(type, nr);
+					final int[] kicks = TetriminoKicks.get(type, true);
+					final int k = TetrisRules.findKick(rows, 0, width, rows.length, kicks, rotated, sx, sy);
+					if (k < 0) continue;
+					nx += kicks[k];
+					ny += kicks[k + 1];
+					break;
+				}
+
+				if (EDGES[e] != TetrisAction.ROTATE && !PlacementSearch.fits(rows, width, shape, nx, ny)) continue;
+				final int next = state(nr, nx, ny);
+				if (isVisited(next)) continue;
+				visit(next);
+				parents[next] = s;
+				parentActions[next] = (byte) EDGES[e].ordinal();
+				queue[tail++] = next;
+			}
+		}
+		return placementCount;
+	}
+
+	/**
+	 * Record a lockable state, unless the same cells were already reached (by
+	 * another rotation state of a symmetrical shape) with fewer inputs.
+	 */
+	private void addPlacement(final int s, final TetriminoShape shape, final int x, final int y) {
+		long cells = 0;
+		for (int j = shape.minY(); j <= shape.maxY(); j++) {
+			cells |= (long) (shape.rowMask(j) >>> shape.minX()) << ((j - shape.minY()) * TetriminoShape.SIZE);
+		}
+		final long key = cells | ((long) (x + shape.minX()) << 16) | ((long) (y + shape.minY()) << 32);
+
+		for (int i = 0; i < placementCount; i++) {
+			if (placementKeys[i] == key) return;
+		}
+		placements[placementCount] = s;
+		placementKeys[placementCount++] = key;
+	}
+
+	public int width() { return width; }
+	public int height() { return height; }
+
+	/**
+	 * Number of placements found by the last search.
+	 */
+	public int placementCount() { return placementCount; }
+
+	public int rotation(final int placement) { return rotationOf(placements[placement]); }
+	public int x(final int placement) { return xOf(placements[placement]); }
+	public int y(final int placement) { return yOf(placements[placement]); }
+
+	/**
+	 * Get the shortest sequence of inputs leading to a placement. The tetrimino
+	 * must then be dropped (or let fall) to be added to the board.
+	 */
+	public List<TetrisAction> path(final int placement) {
+		int length = 0;
+		for (int s = placements[placement]; parents[s] >= 0; s = parents[s]) {
+			++length;
+		}
+
+		final TetrisAction[] actions = new TetrisAction[length];
+		for (int s = placements[placement], i = length - 1; parents[s] >= 0; s = parents[s], i--) {
+			actions[i] = TetrisAction.fromOrdinal(parentActions[s]);
+		}
+		return Arrays.asList(actions);
+	}
+
+	private int state(final int rotation, final int x, final int y) {
+		return (rotation * rowsPerRotation + y + MARGIN) * columns + x + MARGIN;
+	}
+
+	private int rotationOf(final int s) { return s / (columns * rowsPerRotation); }
+	private int xOf(final int s) { return s % columns - MARGIN; }
+	private int yOf(final int s) { return s / columns % rowsPerRotation - MARGIN; }
+
+	private boolean isVisited(final int s) { return (visited[s >>> 6] & (1L << s)) != 0; }
+	private void visit(final int s) { visited[s >>> 6] |= 1L << s; }
+
+}
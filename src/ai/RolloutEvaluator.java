@@ -0,0 +1,292 @@
+package ai;
+
+import model.Tetrimino;
+import model.TetriminoShape;
+import model.TetrisAction;
+import model.TetrisBoard;
+import model.TetrisConfiguration;
+import model.TetrisEngine;
+import model.TetrisSnapshot;
+import simulation.BatchSimulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates the placements of the current tetrimino of a game by Monte Carlo
+ * playouts.
+ *
+ * Each playout restores the game from a snapshot, plays the candidate placement,
+ * then plays the following tetriminos (whose sequence is resampled, except for
+ * the known next one) with a random or greedy policy. Its value is the
+ * heuristic value of the final board, or GAME_OVER_VALUE if the game was lost.
+ *
+ * The playouts run on the workers of a fork/join pool, each with its own
+ * engine, and are spread over the candidates in turn until the requested number
+ * of playouts is reached or the time budget is spent : the more cores, the more
+ * playouts per candidate within a budget. The random stream of each playout is
+ * derived from the seed and the index of the playout, and the values are
+ * aggregated in the order of the playouts, so that the results don't depend on
+ * the scheduling of the workers (without a time budget, they only depend on
+ * the seed).
+ */
+public class RolloutEvaluator {
+	/**
+	 * The policies of the playouts.
+	 */
+	public enum Playout {
+		/**
+		 * Uniformly random reachable placements.
+		 */
+		RANDOM,
+
+		/**
+		 * Best reachable placement according to the heuristic (without lookahead).
+		 */
+		GREEDY,
+	}
+
+	/**
+	 * Value of a playout lost before its end.
+	 */
+	public static final double GAME_OVER_VALUE = -1000;
+
+	private final HeuristicWeights weights;
+	private final ForkJoinPool pool;
+
+	private Playout playout = Playout.GREEDY;
+	private int playouts = 32;
+	private int depth = 3;
+	private long timeBudgetNanos = 0;
+
+	public RolloutEvaluator(final HeuristicWeights weights) {
+		this(weights, ForkJoinPool.commonPool());
+	}
+
+	public RolloutEvaluator(final HeuristicWeights weights, final ForkJoinPool pool) {
+		if (weights == null)
+			throw new IllegalArgumentException("RolloutEvaluator : null HeuristicWeights.");
+		if (pool == null)
+			throw new IllegalArgumentException("RolloutEvaluator : null ForkJoinPool.");
+		this.weights = weights;
+		this.pool = pool;
+	}
+
+	public RolloutEvaluator setPlayout(final Playout playout) {
+		if (playout == null)
+			throw new IllegalArgumentException("RolloutEvaluator : null Playout.");
+		this.playout = playout;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of playouts of each candidate.
+	 */
+	public RolloutEvaluator setPlayouts(final int playouts) {
+		if (playouts <= 0)
+			throw new IllegalArgumentException("RolloutEvaluator : playouts must be > 0.");
+		this.playouts = playouts;
+		return this;
+	}
+
+	/**
+	 * Set the number of tetriminos played after the candidate placement.
+	 */
+	public RolloutEvaluator setDepth(final int depth) {
+		if (depth < 0)
+			throw new IllegalArgumentException("RolloutEvaluator : depth must be >= 0.");
+		this.depth = depth;
+		return this;
+	}
+
+	/**
+	 * Set the maximum duration of an evaluation (0 for no limit). Each candidate
+	 * still gets at least one playout.
+	 */
+	public RolloutEvaluator setTimeBudget(final long milliseconds) {
+		if (milliseconds < 0)
+			throw new IllegalArgumentException("RolloutEvaluator : negative time budget.");
+		timeBudgetNanos = milliseconds * 1_000_000;
+		return this;
+	}
+
+	/**
+	 * Evaluate all the reachable placements of the current tetrimino of a game.
+	 *
+	 * @param engine The game, on a TetrisBitBoard. It is not modified.
+	 * @param seed Seed of the random streams of the playouts.
+	 * @return The results of the candidates (empty if the tetrimino can't move).
+	 */
+	public List<RolloutResult> evaluate(final TetrisEngine engine, final long seed) {
+		final long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+		final List<RolloutResult> results = new ArrayList<RolloutResult>();
+		if (engine.isGameOver() || engine.getCurrentTetrimino() == null) return results;
+
+		final List<Placement> candidates = candidates(engine);
+		if (candidates.isEmpty()) return results;
+
+		// the playouts are distributed to the workers through a shared counter
+		final TetrisSnapshot root = engine.snapshot();
+		final AtomicInteger jobs = new AtomicInteger(0);
+		final double[] values = new double[candidates.size() * playouts];
+		Arrays.fill(values, Double.NaN); // the playouts not played
+
+		final List<Worker> workers = new ArrayList<Worker>();
+		for (int i = 0; i < pool.getParallelism(); i++) {
+			workers.add(new Worker(root, engine.getConfiguration(), candidates, seed, jobs, values, deadline));
+		}
+
+		try {
+			for (final Future<Void> future : pool.invokeAll(workers)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("RolloutEvaluator : interrupted evaluation.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("RolloutEvaluator : failed playout.", e.getCause());
+		}
+
+		final RunningStatistics[] statistics = new RunningStatistics[candidates.size()];
+		for (int i = 0; i < statistics.length; i++) {
+			statistics[i] = new RunningStatistics();
+		}
+		for (int job = 0; job < values.length; job++) {
+			if (values[job] == values[job]) statistics[job % statistics.length].add(values[job]); // not NaN
+		}
+		for (int i = 0; i < statistics.length; i++) {
+			final Placement candidate = candidates.get(i);
+			candidate.value = statistics[i].mean();
+			results.add(new RolloutResult(candidate, statistics[i]));
+		}
+		return results;
+	}
+
+	/**
+	 * Find the placement of the current tetrimino with the best mean playout value.
+	 * @return The best placement, or null if the tetrimino can't move.
+	 */
+	public Placement best(final TetrisEngine engine, final long seed) {
+		RolloutResult best = null;
+		for (final RolloutResult result : evaluate(engine, seed)) {
+			if (best == null || result.mean() > best.mean()) best = result;
+		}
+		return best == null ? null : best.placement();
+	}
+
+	/**
+	 * Get the reachable placements of the current tetrimino, with their inputs
+	 * and the lines they clear (their value is set to the mean of their playouts).
+	 */
+	private static List<Placement> candidates(final TetrisEngine engine) {
+		final TetrisBoard board = engine.getBoard();
+		final int[] rows = rows(board, new int[board.getHeight()]);
+		final Tetrimino t = engine.getCurrentTetrimino();
+
+		final ReachabilitySearch reach = new ReachabilitySearch(board.getWidth(), board.getHeight());
+		final int count = reach.search(rows, t.getType(), t.getRotation(), t.getX(), t.getY());
+		final List<Placement> candidates = new ArrayList<Placement>(count);
+		for (int i = 0; i < count; i++) {
+			final int rotation = reach.rotation(i), x = reach.x(i), y = reach.y(i);
+			final int lines = PlacementSearch.completeLines(rows, board.getWidth(),
+															TetriminoShape.get(t.getType(), rotation), x, y);
+			final Placement placement = new Placement(t.getType(), i, rotation, x, y, lines, Double.NaN);
+			placement.actions = reach.path(i);
+			candidates.add(placement);
+		}
+		return candidates;
+	}
+
+	private static int[] rows(final TetrisBoard board, final int[] rows) {
+		for (int y = 0; y < rows.length; y++) {
+			rows[y] = board.getRow(y);
+		}
+		return rows;
+	}
+
+	/**
+	 * Plays the playouts taken from the shared counter, on its own engine, and
+	 * stores their values at their index.
+	 */
+	private final class Worker implements Callable<Void> {
+		private final TetrisSnapshot root;
+		private final TetrisConfiguration configuration;
+		private final List<Placement> candidates;
+		private final long seed;
+		private final AtomicInteger jobs;
+		private final double[] values;
+		private final long deadline;
+
+		Worker(final TetrisSnapshot root, final TetrisConfiguration configuration,
+			   final List<Placement> candidates, final long seed,
+			   final AtomicInteger jobs, final double[] values, final long deadline) {
+			this.root = root;
+			this.configuration = configuration;
+			this.candidates = candidates;
+			this.seed = seed;
+			this.jobs = jobs;
+			this.values = values;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public Void call() {
+			final int n = candidates.size();
+			final TetrisEngine engine = new TetrisEngine(0, configuration);
+			final PlacementSearch greedy = new PlacementSearch(weights).setLookahead(false);
+			final ReachabilitySearch reach = new ReachabilitySearch(configuration.width(), configuration.height());
+			final int[] rows = new int[configuration.height()];
+
+			// the first playout of each candidate ignores the deadline
+			int job;
+			while ((job = jobs.getAndIncrement()) < values.length && (job < n || System.nanoTime() < deadline)) {
+				final SplittableRandom random = new SplittableRandom(BatchSimulator.gameSeed(seed, job));
+				values[job] = play(engine, candidates.get(job % n), random, greedy, reach, rows);
+			}
+			return null;
+		}
+
+		/**
+		 * Play a playout of a candidate placement and return its value.
+		 */
+		private double play(final TetrisEngine engine, final Placement candidate, final SplittableRandom random,
+							final PlacementSearch greedy, final ReachabilitySearch reach, final int[] rows) {
+			engine.restoreSnapshot(root);
+			engine.reseed(random.nextLong());
+			final int linesBefore = engine.getLinesCleared();
+
+			perform(engine, candidate.actions);
+			for (int i = 0; i < depth && !engine.isGameOver(); i++) {
+				final Tetrimino t = engine.getCurrentTetrimino();
+				if (playout == Playout.GREEDY) {
+					final Placement placement = greedy.search(engine.getBoard(), t, null);
+					if (placement == null) break;
+					perform(engine, placement.actions);
+				} else {
+					final int count = reach.search(rows(engine.getBoard(), rows), t.getType(),
+												   t.getRotation(), t.getX(), t.getY());
+					if (count == 0) break;
+					perform(engine, reach.path(random.nextInt(count)));
+				}
+			}
+
+			if (engine.isGameOver()) return GAME_OVER_VALUE;
+			return weights.evaluate(engine.getBoard(), engine.getLinesCleared() - linesBefore);
+		}
+
+		private void perform(final TetrisEngine engine, final List<TetrisAction> actions) {
+			for (int i = 0; i < actions.size(); i++) {
+				engine.apply(actions.get(i));
+			}
+			engine.hardDrop();
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package ai;
+
+/**
+ * The outcome of the playouts of a candidate placement, evaluated by a RolloutEvaluator.
+ */
+public final class RolloutResult {
+	private final Placement placement;
+	private final long playouts;
+	private final double mean;
+	private final double variance;
+
+	RolloutResult(final Placement placement, final RunningStatistics statistics) {
+		this.placement = placement;
+		this.playouts = statistics.count();
+		this.mean = statistics.mean();
+		this.variance = statistics.variance();
+	}
+
+	public Placement placement() { return placement; }
+
+	/**
+	 * Number of playouts of the candidate.
+	 */
+	public long playouts() { return playouts; }
+
+	/**
+	 * Mean value of the playouts (NaN if none was played).
+	 */
+	public double mean() { return mean; }
+
+	/**
+	 * Sample variance of the value of the playouts.
+	 */
+	public double variance() { return variance; }
+
+	@Override
+	public String toString() {
+		return String.format("%s : %d playouts, mean %.3f, stddev %.3f",
+							 placement, playouts, mean, Math.sqrt(variance));
+	}
+
+}
@@ -0,0 +1,27 @@
+package ai;
+
+/**
+ * Mean and variance of a stream of values, computed in a single pass with
+ * Welford's algorithm.
+ */
+final class RunningStatistics {
+	private long count = 0;
+	private double mean = 0;
+	private double m2 = 0; // sum of the squared differences to the mean
+
+	void add(final double value) {
+		++count;
+		final double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	long count() { return count; }
+	double mean() { return count == 0 ? Double.NaN : mean; }
+
+	/**
+	 * Sample variance (0 for less than two values).
+	 */
+	double variance() { return count < 2 ? 0 : m2 / (count - 1); }
+
+}
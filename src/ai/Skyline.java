@@ -0,0 +1,115 @@
+package ai;
+
+import model.TetriminoShape;
+import model.TetrisBoard;
+
+/**
+ * The skyline of a board : height of each column, number of holes and bumpiness.
+ *
+ * The board resulting from the addition of a shape which clears no line is
+ * evaluated from the skyline, by updating only the columns of the shape,
+ * instead of scanning the whole board.
+ */
+final class Skyline {
+	private final int width;
+	private final int height;
+	private final int[] heights;
+	private int aggregateHeight, holes, bumpiness;
+
+	/**
+	 * New heights of the columns of the evaluated shape.
+	 */
+	private final int[] shapeHeights = new int[TetriminoShape.SIZE];
+
+	Skyline(final int width, final int height) {
+		this.width = width;
+		this.height = height;
+		heights = new int[width];
+	}
+
+	/**
+	 * Copy the skyline maintained by a board.
+	 */
+	void set(final TetrisBoard board) {
+		for (int x = 0; x < width; x++) {
+			heights[x] = board.getColumnHeight(x);
+		}
+		aggregateHeight = board.getAggregateHeight();
+		holes = board.getHoles();
+		bumpiness = board.getBumpiness();
+	}
+
+	/**
+	 * Compute the skyline of a board given by its row masks, from top to bottom.
+	 */
+	void scan(final int[] rows) {
+		for (int x = 0; x < width; x++) {
+			heights[x] = 0;
+		}
+
+		// top-down scan : a column is 'covered' once a block was found in it
+		int covered = 0;
+		holes = 0;
+		for (int y = 0; y < height; y++) {
+			final int row = rows[y];
+			holes += Integer.bitCount(covered & ~row);
+
+			int top = row & ~covered; // first blocks of their columns
+			while (top != 0) {
+				heights[Integer.numberOfTrailingZeros(top)] = height - y;
+				top &= top - 1;
+			}
+			covered |= row;
+		}
+
+		aggregateHeight = bumpiness = 0;
+		for (int x = 0; x < width; x++) {
+			aggregateHeight += heights[x];
+			if (x > 0) bumpiness += Math.abs(heights[x] - heights[x - 1]);
+		}
+	}
+
+	/**
+	 * Evaluate the board of the skyline.
+	 * @param linesCleared Number of lines cleared to reach the board.
+	 */
+	double evaluate(final HeuristicWeights weights, final int linesCleared) {
+		return weights.evaluate(aggregateHeight, holes, bumpiness, linesCleared);
+	}
+
+	/**
+	 * Evaluate the board resulting from the addition of a shape which clears no line.
+	 * The skyline itself is not modified.
+	 *
+	 * @param posX Horizontal position of the shape, where it fits.
+	 * @param posY Vertical position of the shape, where it fits.
+	 */
+	double evaluate(final HeuristicWeights weights, final TetriminoShape shape, final int posX, final int posY) {
+		final int from = posX + shape.minX(), to = posX + shape.maxX();
+		int aggregate = aggregateHeight, holeCount = holes;
+		for (int i = shape.minX(); i <= shape.maxX(); i++) {
+			final int x = posX + i, columnTop = height - heights[x];
+			final int top = posY + shape.top(i), bottom = posY + shape.bottom(i);
+			// the blocks of a column are contiguous : all above the column, or all in its holes
+			if (bottom < columnTop) {
+				holeCount += columnTop - bottom - 1;
+				aggregate += height - top - heights[x];
+				shapeHeights[i - shape.minX()] = height - top;
+			} else {
+				holeCount -= bottom - top + 1;
+				shapeHeights[i - shape.minX()] = heights[x];
+			}
+		}
+
+		// bumpiness of the pairs of columns involving the columns of the shape
+		int bumps = bumpiness;
+		for (int x = Math.max(1, from); x <= Math.min(width - 1, to + 1); x++) {
+			final int left = x - 1 >= from ? shapeHeights[x - 1 - from] : heights[x - 1];
+			final int right = x <= to ? shapeHeights[x - from] : heights[x];
+			bumps += Math.abs(right - left) - Math.abs(heights[x] - heights[x - 1]);
+		}
+
+		return weights.evaluate(aggregate, holeCount, bumps, 0);
+	}
+
+}
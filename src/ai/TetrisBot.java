@@ -0,0 +1,160 @@
+package ai;
+
+import control.TetrisController;
+import model.Tetrimino;
+import model.TetrisAction;
+import model.TetrisConfiguration;
+import model.TetrisEngine;
+import model.TetrisSnapshot;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Plays the interactive game through a TetrisController, like a player would.
+ *
+ * Each new tetrimino is moved to the placement found by a PlacementSearch and
+ * dropped, using the same controller methods as the keyboard (so that the
+ * games of the bot can be recorded).
+ *
+ * With an Executor, the search runs in the background on a snapshot of the
+ * game, so that the caller (the game loop, holding the lock of the view) is
+ * not blocked while the bot thinks : the placement is played by the first call
+ * after the end of the search. The soft drops of its path are then shortened
+ * by the rows the tetrimino fell in the meantime.
+ */
+public class TetrisBot {
+	private final PlacementSearch search;
+
+	/**
+	 * Runs the searches (null to search on the calling thread).
+	 */
+	private final Executor executor;
+
+	/**
+	 * The last tetrimino played (or being searched).
+	 */
+	private Tetrimino playedTetrimino = null;
+
+	/**
+	 * The background search of the placement of the played tetrimino (null if none),
+	 * and the vertical position of the tetrimino when it started.
+	 */
+	private FutureTask<Placement> pendingSearch = null;
+	private int searchY;
+
+	/**
+	 * Create a bot searching on the calling thread.
+	 */
+	public TetrisBot(final PlacementSearch search) {
+		this(search, null);
+	}
+
+	/**
+	 * @param search Search of the placements.
+	 * @param executor Runs the searches in the background (null to search on the calling thread).
+	 */
+	public TetrisBot(final PlacementSearch search, final Executor executor) {
+		if (search == null)
+			throw new IllegalArgumentException("TetrisBot : null PlacementSearch.");
+		this.search = search;
+		this.executor = executor;
+	}
+
+	/**
+	 * Play the current tetrimino, if it was not played yet. Called before each
+	 * update of the game.
+	 */
+	public void play(final TetrisController controller) {
+		Tetrimino t = controller.getControlledTetrimino();
+		if (t == null) return;
+
+		if (executor == null) {
+			if (t == playedTetrimino) return;
+			playedTetrimino = t;
+			perform(controller, search.search(controller.getBoard(), t, controller.getNextTetriminoType()), 0);
+			return;
+		}
+
+		// play the placement found in the background, which spawns the next tetrimino
+		if (t == playedTetrimino && pendingSearch != null && pendingSearch.isDone()) {
+			final Placement placement = result(pendingSearch);
+			pendingSearch = null;
+			perform(controller, placement, t.getY() - searchY);
+			t = controller.getControlledTetrimino();
+		}
+
+		if (t != null && t != playedTetrimino) {
+			playedTetrimino = t;
+			// the previous tetrimino may have landed before the end of its search
+			if (pendingSearch != null) pendingSearch.cancel(false);
+			pendingSearch = startSearch(controller.snapshot(), controller.getConfiguration());
+			searchY = t.getY();
+		}
+	}
+
+	/**
+	 * Start the search of the placement of the current tetrimino of a snapshot.
+	 */
+	private FutureTask<Placement> startSearch(final TetrisSnapshot snapshot, final TetrisConfiguration configuration) {
+		final FutureTask<Placement> task = new FutureTask<Placement>(new Callable<Placement>() {
+			@Override
+			public Placement call() {
+				final TetrisEngine engine = new TetrisEngine(0, configuration);
+				engine.restoreSnapshot(snapshot);
+				return search.search(engine.getBoard(), engine.getCurrentTetrimino(), engine.getNextTetriminoType());
+			}
+		});
+		executor.execute(task);
+		return task;
+	}
+
+	private static Placement result(final FutureTask<Placement> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("TetrisBot : failed search.", e.getCause());
+		}
+	}
+
+	/**
+	 * Perform the inputs of a placement then drop the tetrimino.
+	 * @param fallenRows Number of rows the tetrimino fell since the start of the search.
+	 */
+	private static void perform(final TetrisController controller, final Placement placement, int fallenRows) {
+		if (placement == null) return;
+
+		final List<TetrisAction> actions = placement.actions();
+		for (final TetrisAction action : actions) {
+			switch (action) {
+			case ROTATE:
+				controller.keyUp();
+				break;
+			case LEFT:
+				controller.keyLeft();
+				break;
+			case RIGHT:
+				controller.keyRight();
+				break;
+			case SOFT_DROP:
+				if (fallenRows > 0) {
+					--fallenRows;
+				} else {
+					controller.keyDown();
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		controller.keySpace();
+	}
+
+}
@@ -0,0 +1,149 @@
+package ai;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of position evaluations, shared by the threads of a search.
+ *
+ * The table is made of 2-way buckets : a position can be stored in either slot
+ * of its bucket. When both slots hold other positions, the entry stored by the
+ * oldest search is replaced, so that the entries of the previous search (which
+ * the next search probes) are not evicted by the ones of older searches.
+ * Keys and values are stored in primitive arrays without any lock : each entry
+ * stores its key XORed with its data, so that an entry torn by a concurrent
+ * write is seen as a miss instead of returning a wrong value.
+ */
+public final class TranspositionTable {
+	/**
+	 * Value returned by probe when the key is not in the table.
+	 */
+	public static final float MISS = Float.NaN;
+
+	private static final long VALID_BIT = 1L << 63;
+
+	/**
+	 * Bits of the generation stored in an entry, above its value.
+	 */
+	private static final int GENERATION_MASK = 0x7FFF;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int bucketMask;
+
+	/**
+	 * Number of the current search, stored in the entries to find the oldest ones.
+	 */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param capacity Number of entries. Must be a power of two, at least 2.
+	 */
+	public TranspositionTable(final int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("TranspositionTable : the capacity must be a power of two, at least 2.");
+		keys = new long[capacity];
+		data = new long[capacity];
+		bucketMask = capacity / 2 - 1;
+	}
+
+	/**
+	 * Start a new search : the entries stored from now on replace the older
+	 * ones first.
+	 */
+	public void newSearch() {
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Get the cached value of a position.
+	 * @param key Hash of the position.
+	 * @return The value, or MISS (NaN) if the position is not in the table.
+	 */
+	public float probe(final long key) {
+		final int first = bucket(key);
+		for (int index = first; index < first + 2; index++) {
+			final long entry = data[index];
+			if (entry != 0 && (keys[index] ^ entry) == key) {
+				hits.increment();
+				return Float.intBitsToFloat((int) entry);
+			}
+		}
+		misses.increment();
+		return MISS;
+	}
+
+	/**
+	 * Cache the value of a position : in the slot of its bucket already holding
+	 * it, otherwise in an empty slot, otherwise in place of the older entry.
+	 * @param key Hash of the position.
+	 * @param value Value of the position.
+	 */
+	public void store(final long key, final float value) {
+		final int current = generation.get() & GENERATION_MASK;
+		final long entry = VALID_BIT | (long) current << 32 | (Float.floatToRawIntBits(value) & 0xFFFFFFFFL);
+
+		final int first = bucket(key);
+		int index = first;
+		int oldest = -1;
+		for (int i = first; i < first + 2; i++) {
+			final long previous = data[i];
+			if (previous == 0 || (keys[i] ^ previous) == key) {
+				index = i;
+				oldest = Integer.MAX_VALUE; // not an eviction
+				break;
+			}
+			final int age = (current - (int) (previous >>> 32)) & GENERATION_MASK;
+			if (age > oldest) {
+				index = i;
+				oldest = age;
+			}
+		}
+		if (oldest != Integer.MAX_VALUE) evictions.increment();
+
+		keys[index] = key ^ entry;
+		data[index] = entry;
+	}
+
+	/**
+	 * Remove all the entries and reset the counters.
+	 */
+	public void clear() {
+		for (int i = 0; i < data.length; i++) {
+			keys[i] = 0;
+			data[i] = 0;
+		}
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+	public int capacity() { return data.length; }
+
+	public long hits() { return hits.sum(); }
+	public long misses() { return misses.sum(); }
+
+	/**
+	 * Number of entries overwritten by the entry of another position.
+	 */
+	public long evictions() { return evictions.sum(); }
+
+	/**
+	 * Get the index of the first slot of the bucket of a key.
+	 */
+	private int bucket(final long key) {
+		return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+	}
+
+	@Override
+	public String toString() {
+		final long hits = hits(), misses = misses();
+		return String.format("%d entries : %d hits, %d misses (%.1f%% hit rate), %d evictions",
+							 capacity(), hits, misses, 100.0 * hits / Math.max(1, hits + misses), evictions());
+	}
+
+}
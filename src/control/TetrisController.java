@@ -1,25 +1,53 @@
 package control;
 
+import log.EventLog;
+import log.EventType;
 import model.Tetrimino;
-import model.TetrisBoardCell;
+import model.TetriminoType;
+import model.TetrisAction;
+import model.TetrisBoard;
+import model.TetrisConfiguration;
 import model.TetrisGameSession;
 import model.TetrisModel;
+import model.TetrisSnapshot;
 import model.TetrisScoreManager.TetrisHighScore;
+import replay.InputRecorder;
+import replay.InputRecording;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 
 public class TetrisController {
 	private TetrisModel model;
 
+	/**
+	 * File each game is recorded to (null to disable the recording).
+	 */
+	private File recordingFile = null;
+	private InputRecorder recorder = null;
+
 	public TetrisController(final TetrisModel model) {
 		this.model = model;
 	}
 
+	/**
+	 * Record the next games, to replay them with the ReplayEngine.
+	 * @param file File each game is saved to when lost, overwriting the previous
+	 * one (null to disable the recording).
+	 */
+	public void setRecordingFile(final File file) {
+		recordingFile = file;
+	}
+
 	/*
 	 * Initialize and start the game.
 	 */
 	public void startGame() {
 		model.startGame();
+		recorder = recordingFile == null ? null : new InputRecorder(model.getEngine());
 	}
 
 	/**
@@ -28,7 +56,22 @@ public class TetrisController {
 	 * @return True if the game is lost, false otherwise.
 	 */
 	public boolean updateGame() {
-		return model.updateGame();
+		final boolean gameOver = model.updateGame();
+		if (gameOver && recorder != null) {
+			saveRecording(recorder.finish());
+			recorder = null;
+		}
+		return gameOver;
+	}
+
+	private void saveRecording(final InputRecording recording) {
+		try (OutputStream output = new FileOutputStream(recordingFile)) {
+			recording.write(output);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		EventLog.get().log(EventType.RECORDING_SAVED, recordingFile.getPath());
 	}
 
 	/**
@@ -42,6 +85,7 @@ public class TetrisController {
 	 * Called when the up key is pressed. Rotates the tetrimino.
 	 */
 	public void keyUp() {
+		if (recorder != null) recorder.record(TetrisAction.ROTATE);
 		model.rotate();
 	}
 
@@ -49,13 +93,23 @@ public class TetrisController {
 	 * Called when the down key is pressed. Accelerates the tetrimino's fall.
 	 */
 	public void keyDown() {
+		if (recorder != null) recorder.record(TetrisAction.SOFT_DROP);
 		model.speedUpFall();
 	}
 
+	/**
+	 * Called when the space key is pressed. Drops the tetrimino.
+	 */
+	public void keySpace() {
+		if (recorder != null) recorder.record(TetrisAction.HARD_DROP);
+		model.hardDrop();
+	}
+
 	/**
 	 * Called when the left key is pressed. Moves the tetrimino to the left.
 	 */
 	public void keyLeft() {
+		if (recorder != null) recorder.record(TetrisAction.LEFT);
 		model.left();
 	}
 
@@ -63,13 +117,28 @@ public class TetrisController {
 	 * Called when the right key is pressed. Moves the tetrimino to the right.
 	 */
 	public void keyRight() {
+		if (recorder != null) recorder.record(TetrisAction.RIGHT);
 		model.right();
 	}
 
+	public TetrisConfiguration getConfiguration() { return model.getConfiguration(); }
 	public int getScore() { return model.getScore(); }
 	public ArrayList<TetrisHighScore> getHighscores() { return model.getHighscores(); }
 	public TetrisGameSession getLastGameSession() { return model.getLastGameSession(); }
 	public Tetrimino getControlledTetrimino() { return model.getControlledTetrimino(); }
-	public TetrisBoardCell[][] getBoardCells() { return model.getBoardCells(); }
+	public TetriminoType getNextTetriminoType() { return model.getNextTetriminoType(); }
+	public int getLandingY() { return model.getLandingY(); }
+	public TetrisBoard getBoard() { return model.getBoard(); }
+
+	/**
+	 * Create a snapshot of the current state of the game (see TetrisEngine.snapshot).
+	 */
+	public TetrisSnapshot snapshot() { return model.getEngine().snapshot(); }
+
+	/**
+	 * Get the cells changed since the last call, one bitmask per row.
+	 * @return True if any cell changed.
+	 */
+	public boolean collectDirtyCells(final int[] masks) { return model.collectDirtyCells(masks); }
 
 }
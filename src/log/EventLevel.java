@@ -0,0 +1,16 @@
+package log;
+
+/**
+ * Enumerates the severity levels of the logged events, from the most verbose
+ * to the most important.
+ */
+public enum EventLevel {
+	DEBUG,
+	INFO,
+	WARNING,
+	ERROR,
+	/**
+	 * Only used as a threshold, to disable the logging of all the events.
+	 */
+	OFF,;
+}
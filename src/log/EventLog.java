@@ -0,0 +1,232 @@
+package log;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Low-overhead structured event log.
+ *
+ * Logging an event only copies its arguments into a preallocated ring buffer :
+ * the messages are formatted and written by a background thread, so that the
+ * logging calls of the game loop cost neither formatting nor I/O time.
+ *
+ * The log is disabled by default. When the ring buffer is full, the new events
+ * are dropped (and counted) rather than blocking the caller.
+ */
+public final class EventLog {
+	/**
+	 * Default capacity of the ring buffer, in events. Must be a power of two.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final EventLog INSTANCE = new EventLog(DEFAULT_CAPACITY);
+
+	private final int capacity;
+	private final int indexMask;
+
+	/**
+	 * The ring buffer, one slot per event.
+	 */
+	private final long[] timestamps;
+	private final EventType[] types;
+	private final int[] arguments; // 3 per slot
+	private final Object[] objects;
+
+	/**
+	 * Sequence number of the event stored in each slot, set once the slot is
+	 * completely written.
+	 */
+	private final AtomicLongArray published;
+
+	/**
+	 * Sequence number of the next event to publish.
+	 */
+	private final AtomicLong head = new AtomicLong(0);
+
+	/**
+	 * Sequence number of the next event to write.
+	 */
+	private volatile long tail = 0;
+
+	private final AtomicLong droppedEvents = new AtomicLong(0);
+
+	private final long startTime = System.nanoTime();
+
+	private volatile EventLevel level = EventLevel.OFF;
+	private volatile PrintStream output = System.out;
+	private volatile Thread writerThread = null;
+
+	/**
+	 * True while the background thread is parked (or about to be) waiting for an event.
+	 */
+	private volatile boolean writerWaiting = false;
+
+	/**
+	 * @param capacity Capacity of the ring buffer, in events. Must be a power of two.
+	 */
+	public EventLog(final int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("EventLog : the capacity must be a power of two.");
+
+		this.capacity = capacity;
+		this.indexMask = capacity - 1;
+		timestamps = new long[capacity];
+		types = new EventType[capacity];
+		arguments = new int[capacity * 3];
+		objects = new Object[capacity];
+		published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			published.set(i, -1);
+		}
+	}
+
+	/**
+	 * Get the log shared by the whole application.
+	 */
+	public static EventLog get() { return INSTANCE; }
+
+	/**
+	 * Enable the logging of the events of the given level and above.
+	 *
+	 * @param level Minimum level of the logged events (EventLevel.OFF to disable the log).
+	 * @param output Stream the events are written to.
+	 */
+	public synchronized void enable(final EventLevel level, final PrintStream output) {
+		if (output == null)
+			throw new IllegalArgumentException("EventLog.enable : null output.");
+		this.output = output;
+		this.level = level;
+
+		if (level != EventLevel.OFF && writerThread == null) {
+			writerThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					writeEvents();
+				}
+			}, "EventLog writer");
+			writerThread.setDaemon(true);
+			writerThread.start();
+		}
+	}
+
+	/**
+	 * Disable the log. The events already logged will still be written.
+	 */
+	public void disable() {
+		level = EventLevel.OFF;
+	}
+
+	/**
+	 * Check if the events of the given level are logged.
+	 */
+	public boolean isEnabled(final EventLevel level) {
+		return level.compareTo(this.level) >= 0 && level != EventLevel.OFF;
+	}
+
+	public void log(final EventType type) {
+		log(type, 0, 0, 0, null);
+	}
+
+	public void log(final EventType type, final Object object) {
+		log(type, 0, 0, 0, object);
+	}
+
+	public void log(final EventType type, final int a, final Object object) {
+		log(type, a, 0, 0, object);
+	}
+
+	public void log(final EventType type, final int a, final int b) {
+		log(type, a, b, 0, null);
+	}
+
+	/**
+	 * Log an event, if its level is enabled.
+	 *
+	 * @param type Type of the event.
+	 * @param a First int argument of the message.
+	 * @param b Second int argument of the message.
+	 * @param c Third int argument of the message.
+	 * @param object Object argument of the message, formatted with its toString
+	 * method by the background thread : it must not be modified afterwards.
+	 */
+	public void log(final EventType type, final int a, final int b, final int c, final Object object) {
+		if (!isEnabled(type.level())) return;
+
+		// claim a slot, unless the writer is too late
+		long sequence;
+		do {
+			sequence = head.get();
+			if (sequence - tail >= capacity) {
+				droppedEvents.incrementAndGet();
+				return;
+			}
+		} while (!head.compareAndSet(sequence, sequence + 1));
+
+		final int index = (int) sequence & indexMask;
+		timestamps[index] = System.nanoTime();
+		types[index] = type;
+		arguments[index * 3] = a;
+		arguments[index * 3 + 1] = b;
+		arguments[index * 3 + 2] = c;
+		objects[index] = object;
+		published.set(index, sequence); // publish the slot to the writer
+
+		// wake up the writer if it waits for an event (NB : both volatile, so
+		// either it sees the slot before parking, or it is seen waiting here)
+		if (writerWaiting) {
+			writerWaiting = false;
+			LockSupport.unpark(writerThread);
+		}
+	}
+
+	/**
+	 * Get the number of events dropped because the ring buffer was full.
+	 */
+	public long droppedEvents() { return droppedEvents.get(); }
+
+	/**
+	 * Main loop of the background thread : write the published events in order.
+	 *
+	 * The output is flushed once the written events catch up with the logged
+	 * ones, then the thread parks until the next event is logged.
+	 */
+	private void writeEvents() {
+		long dropped = 0;
+		boolean unflushed = false;
+		while (true) {
+			final long sequence = tail;
+			final int index = (int) sequence & indexMask;
+			if (published.get(index) != sequence) {
+				if (unflushed) {
+					output.flush();
+					unflushed = false;
+				}
+				writerWaiting = true;
+				if (published.get(index) != sequence) LockSupport.park(this);
+				writerWaiting = false;
+				continue;
+			}
+
+			final EventType type = types[index];
+			final String message = String.format(type.message(),
+				arguments[index * 3], arguments[index * 3 + 1], arguments[index * 3 + 2],
+				objects[index]);
+			final double time = (timestamps[index] - startTime) / 1e9;
+			objects[index] = null;
+			tail = sequence + 1; // release the slot
+
+			output.format("[%s] %.3f %s\n", type.level(), time, message);
+			unflushed = true;
+
+			final long droppedNow = droppedEvents.get();
+			if (droppedNow != dropped) {
+				output.format("[%s] %d events dropped (log buffer full)\n", EventLevel.WARNING,
+							  droppedNow - dropped);
+				dropped = droppedNow;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package log;
+
+/**
+ * Enumerates the events that can be logged, with their level and message.
+ *
+ * The message is a format string receiving the three int arguments of the
+ * event, then its object argument : %1$d, %2$d, %3$d and %4$s.
+ */
+public enum EventType {
+	TETRIMINO_SPAWNED(EventLevel.DEBUG, "New tetrimino spawned (type = \"%4$s\", positionX = %1$d)."),
+	TETRIMINO_LOCKED(EventLevel.DEBUG, "collision (x = %1$d, y = %2$d) !"),
+	LINES_CLEARED(EventLevel.DEBUG, "=> [%1$d] lines cleared ! [%2$d] in total."),
+	GAME_OVER(EventLevel.INFO, "Game Over ! Score = %1$d"),
+	PLAYER_NAME_INPUT(EventLevel.INFO, "Player name input : \"%4$s\"."),
+	HIGH_SCORE_ADDED(EventLevel.INFO,
+		"Score manager : added new high score (name = \"%4$s\", score = %1$d) at index %2$d"),
+	HIGH_SCORES_LOADED(EventLevel.INFO, "Score manager : loaded high scores from file \"%4$s\""),
+	HIGH_SCORES_SAVED(EventLevel.INFO, "Score manager : saved high scores to file \"%4$s\""),
+	RECORDING_SAVED(EventLevel.INFO, "Recording : saved the game to file \"%4$s\""),
+	INVALID_HIGH_SCORE(EventLevel.WARNING, "Score manager : invalid highscore \"%4$s\"."),;
+
+	private final EventLevel level;
+	private final String message;
+
+	EventType(final EventLevel level, final String message) {
+		this.level = level;
+		this.message = message;
+	}
+
+	public EventLevel level() { return level; }
+	public String message() { return message; }
+}
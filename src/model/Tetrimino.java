@@ -10,14 +10,6 @@ public class Tetrimino {
 	 */
 	private TetriminoColor color;
 
-	/**
-	 * The array defining the geometry of the tetrimino. True means that a block is
-	 * present.
-	 * First dimension is the rotation index (0-3), second dimension is X (horizontal axis) and
-	 * third dimension is Y (vertical axis).
-	 */
-	private boolean[][][] blocks = new boolean[4][4][4];
-
 	/**
 	 * The X and Y positions on the board. X is the horizontal axis and Y the
 	 * vertical ones (descending).
@@ -34,157 +26,45 @@ public class Tetrimino {
 	 */
 	private int rotation = 0;
 
+	/**
+	 * The geometry of the tetrimino in its current rotation state.
+	 */
+	private TetriminoShape shape;
+
 	public Tetrimino(final TetriminoColor color, final TetriminoType type,
-					 final int positionX, final int positionY,
-					 final boolean[][][] blocks) {
+					 final int positionX, final int positionY) {
 		this.color = color;
 		this.type = type;
 		this.positionX = positionX;
 		this.positionY = positionY;
-		this.blocks = blocks;
+		this.shape = TetriminoShape.get(type, rotation);
 	}
 
-	public static boolean[][][] getBlocksFromType(final TetriminoType type) {
-		switch (type) {
-		case STICK:
-			return new boolean[][][] {
-				{
-					{ true, true, true, true }, { false, false, false, false },
-				    { false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, false, true, false }, { false, false, true, false },
-				    { false, false, true, false }, { false, false, true, false },
-				},
-				{
-					{ false, false, false, false }, { false, false, false, false },
-					{ true, true, true, true }, { false, false, false, false },
-				},
-				{
-					{ false, true, false, false }, { false, true, false, false },
-					{ false, true, false, false }, { false, true, false, false },
-				},
-			};
-		case BOX:
-			return new boolean[][][] {
-				{
-					{ true, true, false, false }, { true, true, false, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ true, true, false, false }, { true, true, false, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ true, true, false, false }, { true, true, false, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ true, true, false, false }, { true, true, false, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-			};
-		case STAIRS:
-			return new boolean[][][] {
-				{
-					{ false, true, false, false }, { true, true, true, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, true, false, false }, { false, true, true, false },
-					{ false, true, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, false, false, false }, { true, true, true, false },
-					{ false, true, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, true, false, false }, { true, true, false, false },
-					{ false, true, false, false }, { false, false, false, false },
-				},
-			};
-		case RIGHT_SNAKE:
-			return new boolean[][][] {
-				{
-					{ false, false, true, true }, { false, true, true, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, false, true, false }, { false, false, true, true },
-					{ false, false, false, true }, { false, false, false, false },
-				},
-				{
-					{ false, false, false, false }, { false, false, true, true },
-					{ false, true, true, false }, { false, false, false, false }
-				},
-				{
-					{ false, true, false, false }, { false, true, true, false },
-					{ false, false, true, false }, { false, false, false, false },
-				},
-			};
-		case LEFT_SNAKE:
-			return new boolean[][][] {
-				{
-					{ true, true, false, false }, { false, true, true, false },
-					{ false, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, false, true, false }, { false, true, true, false },
-					{ false, true, false, false }, { false, false, false, false },
-				},
-				{
-					{ false, false, false, false }, { true, true, false, false },
-					{ false, true, true, false }, { false, false, false, false }
-				},
-				{
-					{ false, true, false, false }, { true, true, false, false },
-					{ true, false, false, false }, { false, false, false, false },
-				},
-			};
-		case LEFT_L:
-			return new boolean[][][] {
-				{
-					{ true, false, false, false }, { true, true, true, false },
-					{ false, false, false, false }, { false, false, false, false }
-				},
-				{
-					{ false, true, true, false }, { false, true, false, false },
-					{ false, true, false, false }, { false, false, false, false }
-				},
-				{
-					{ false, false, false, false }, { true, true, true, false },
-					{ false, false, true, false }, { false, false, false, false },
-				},
-				{
-					{ false, true, false, false }, { false, true, false, false },
-					{ true, true, false, false }, { false, false, false, false },
-				},
-			};
-		case RIGHT_L:
-			return new boolean[][][] {
-				{
-					{ false, false, true, false }, { true, true, true, false },
-					{ false, false, false, false }, { false, false, false, false }
-				},
-				{
-					{ false, true, false, false }, { false, true, false, false },
-					{ false, true, true, false }, { false, false, false, false },
-				},
-				{
-					{ false, false, false, false }, { true, true, true, false },
-					{ true, false, false, false }, { false, false, false, false },
-				},
-				{
-					{ true, true, false, false }, { false, true, false, false },
-					{ false, true, false, false }, { false, false, false, false },
-				},
-			};
-		}
-		return null;
+	/**
+	 * Overwrite the whole state of the tetrimino (used to restore snapshots).
+	 */
+	void set(final TetriminoColor color, final TetriminoType type, final int rotation,
+			 final int positionX, final int positionY) {
+		this.color = color;
+		this.type = type;
+		this.rotation = rotation;
+		this.positionX = positionX;
+		this.positionY = positionY;
+		this.shape = TetriminoShape.get(type, rotation);
 	}
 
+	/**
+	 * Get the current rotation index (0-3).
+	 */
+	public int getRotation() { return rotation; }
+
+	/**
+	 * Rotate the tetrimino in place, without any collision check.
+	 * @param right True to rotate clockwise, false to rotate counterclockwise.
+	 */
 	public void rotate(final boolean right) {
-		rotation = (right ? (rotation + 1) : (rotation - 1)) % 4;
+		rotation = (rotation + (right ? 1 : TetriminoShape.ROTATIONS - 1)) & (TetriminoShape.ROTATIONS - 1);
+		shape = TetriminoShape.get(type, rotation);
 	}
 
 	public void move(final int deltaX, final int deltaY) {
@@ -195,11 +75,12 @@ public class Tetrimino {
 	public int getX() { return positionX; }
 	public int getY() { return positionY; }
 
-	public boolean getBlock(final int x, final int y) {
-		if (x < 0 || x >= 4 || y < 0 || y >= 4)
-			return false;
-		return blocks[rotation][x][y];
-	}
+	public boolean getBlock(final int x, final int y) { return shape.isPresent(x, y); }
+
+	/**
+	 * Get the geometry of the tetrimino in its current rotation state.
+	 */
+	public TetriminoShape getShape() { return shape; }
 
 	public TetriminoColor getColor() { return color; }
 	public TetriminoType getType() { return type; }
@@ -4,6 +4,9 @@ import java.util.Random;
 
 /**
  * Defines the color of a tetrimino.
+ *
+ * The colors stored by the boards and those of the tetrimino types are the
+ * immutable instances interned by TetriminoPalette.
  */
 public class TetriminoColor {
 
@@ -13,7 +16,22 @@ public class TetriminoColor {
 	private int green;
 	private int blue;
 
+	/**
+	 * Cached index of the color in TetriminoPalette, tagged with the RGB value
+	 * it was found for : (rgb << 8) | index, or -1 if unknown.
+	 * NB : volatile since the shared instances are read by several threads, and
+	 * tagged so that an index written concurrently with a change of the color
+	 * never matches its new value.
+	 */
+	volatile long paletteEntry = -1;
+
+	/**
+	 * True for the instances of TetriminoPalette, which must not be modified.
+	 */
+	final boolean interned;
+
 	public TetriminoColor(final int red, final int green, final int blue) {
+		interned = false;
 		set(red, green, blue);
 	}
 
@@ -21,12 +39,33 @@ public class TetriminoColor {
 		this.red = other.red;
 		this.green = other.green;
 		this.blue = other.blue;
+		this.paletteEntry = other.paletteEntry;
+		interned = false;
+	}
+
+	/**
+	 * Create the interned instance of TetriminoPalette at the given index.
+	 */
+	TetriminoColor(final int red, final int green, final int blue, final int paletteIndex) {
+		this.red = red;
+		this.green = green;
+		this.blue = blue;
+		interned = true;
+		paletteEntry = ((long) ((red << 16) | (green << 8) | blue) << 8) | paletteIndex;
 	}
 
 	/**
 	 * Get a completely random color.
 	 */
 	public static TetriminoColor getRandomColor() {
+		return getRandomColor(random);
+	}
+
+	/**
+	 * Get a completely random color, drawn from the given generator so that it
+	 * can be reproduced from its seed.
+	 */
+	public static TetriminoColor getRandomColor(final Random random) {
 		return new TetriminoColor(random.nextInt(256), random.nextInt(256), random.nextInt(256));
 	}
 
@@ -34,18 +73,14 @@ public class TetriminoColor {
 	 * Get the color corresponding to a tetrimino type.
 	 */
 	public static TetriminoColor getColorFromType(final TetriminoType type) {
-		final TetriminoColor[] palette = {
-			new TetriminoColor(20, 255, 255), // stick
-			new TetriminoColor(240, 240, 20), // box
-			new TetriminoColor(130, 30, 130), // stairs
-			new TetriminoColor(40, 255, 40), // right snake
-			new TetriminoColor(0, 67, 0), // left snake
-			new TetriminoColor(40, 50, 255), // left L
-			new TetriminoColor(255, 160, 20), // right L
-		};
-		return palette[type.ordinal()];
+		return TetriminoPalette.get(TetriminoPalette.indexOf(type));
 	}
 
+	/**
+	 * Get the index of the color in TetriminoPalette, interning it if needed.
+	 */
+	public int paletteIndex() { return TetriminoPalette.indexOf(this); }
+
 	public int red() { return red; }
 	public int green() { return green; }
 	public int blue() { return blue; }
@@ -53,29 +88,38 @@ public class TetriminoColor {
 	public final void setRed(final int red) {
 		if (!isColorScalarValid(red))
 			throw new IllegalArgumentException("A color value must be between 0 and 255.");
+		checkMutable();
 		this.red = red;
 	}
 
 	public final void setGreen(final int green) {
 		if (!isColorScalarValid(green))
 			throw new IllegalArgumentException("A color value must be between 0 and 255.");
+		checkMutable();
 		this.green = green;
 	}
 
 	public final void setBlue(final int blue) {
 		if (!isColorScalarValid(blue))
 			throw new IllegalArgumentException("A color value must be between 0 and 255.");
+		checkMutable();
 		this.blue = blue;
 	}
 
 	public final void set(final int red, final int green, final int blue) {
 		if (!isColorScalarValid(red) || !isColorScalarValid(green) || !isColorScalarValid(blue))
 			throw new IllegalArgumentException("A color value must be between 0 and 255.");
+		checkMutable();
 		this.red = red;
 		this.green = green;
 		this.blue = blue;
 	}
 
+	private void checkMutable() {
+		if (interned)
+			throw new IllegalStateException("TetriminoColor : the palette colors can't be modified.");
+	}
+
 	@Override
 	public String toString() {
 		return String.format("RGB (%d, %d, %d)", red, green, blue);
@@ -0,0 +1,57 @@
+package model;
+
+/**
+ * The wall kicks of the rotations : the offsets tried in turn when a rotated
+ * tetrimino doesn't fit at its position.
+ *
+ * The tables are computed once for each tetrimino type and direction, so that
+ * a rotation only iterates over a shared int array. The offsets are adapted to
+ * the shapes of this game (which don't follow the standard rotation system) :
+ * the tetrimino is first pushed sideways, away from a wall or a block, then
+ * upwards. They don't depend on the rotation state the tetrimino rotates from.
+ */
+public final class TetriminoKicks {
+	/**
+	 * Offsets of a clockwise rotation, as (x, y) pairs. The first one is the
+	 * rotation in place. The counterclockwise ones are mirrored horizontally.
+	 */
+	private static final int[] DEFAULT_KICKS = { 0, 0, -1, 0, +1, 0, 0, -1, -1, -1, +1, -1 };
+	private static final int[] STICK_KICKS = { 0, 0, -1, 0, +1, 0, -2, 0, +2, 0, 0, -1, 0, -2 };
+	private static final int[] NO_KICKS = { 0, 0 };
+
+	/**
+	 * All the tables. Dimensions are the tetrimino type's ordinal and the
+	 * direction (0 : clockwise).
+	 */
+	private static final int[][][] KICKS = new int[TetriminoType.values().length][2][];
+
+	static {
+		for (final TetriminoType type : TetriminoType.values()) {
+			final int[] clockwise = type == TetriminoType.BOX ? NO_KICKS
+				: type == TetriminoType.STICK ? STICK_KICKS : DEFAULT_KICKS;
+			final int[] counterclockwise = new int[clockwise.length];
+			for (int i = 0; i < clockwise.length; i += 2) {
+				counterclockwise[i] = -clockwise[i];
+				counterclockwise[i + 1] = clockwise[i + 1];
+			}
+
+			KICKS[type.ordinal()][0] = clockwise;
+			KICKS[type.ordinal()][1] = counterclockwise;
+		}
+	}
+
+	private TetriminoKicks() { }
+
+	/**
+	 * Get the offsets to try for a rotation.
+	 *
+	 * @param type Type of the tetrimino.
+	 * @param clockwise Direction of the rotation.
+	 * @return The offsets as (x, y) pairs, in order. The array is shared and must
+	 * not be modified.
+	 */
+	public static int[] get(final TetriminoType type, final boolean clockwise) {
+		return KICKS[type.ordinal()][clockwise ? 0 : 1];
+	}
+
+}
@@ -0,0 +1,142 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The palette of the colors of the blocks, shared by the whole application.
+ *
+ * Each distinct color is interned once into an immutable TetriminoColor
+ * identified by its palette index : the boards store one byte per cell, and
+ * the views map the indices to their own precomputed colors without
+ * allocating. Index 0 is the color of the empty cells, followed by the fixed
+ * colors of the tetrimino types ; the custom colors are added on demand.
+ *
+ * The palette is bounded to SIZE colors. The first indices are reserved for
+ * the empty cells and the tetrimino types, which leaves SIZE - 8 = 248 indices
+ * to the custom colors. The colors are never evicted nor recycled, since the
+ * boards and the caches of the views keep their indices for the lifetime of
+ * the application : once the palette is full, interning a new color returns
+ * the index of the closest color of the palette instead, so only the first
+ * 248 distinct custom colors are shown exactly.
+ */
+public final class TetriminoPalette {
+	/**
+	 * Maximum number of colors of the palette (the indices fit in a byte).
+	 */
+	public static final int SIZE = 256;
+
+	/**
+	 * Index of the color of the empty cells.
+	 */
+	public static final int EMPTY = 0;
+
+	/**
+	 * Index of the color of the first tetrimino type.
+	 */
+	private static final int FIRST_TYPE = 1;
+
+	private static final AtomicReferenceArray<TetriminoColor> colors = new AtomicReferenceArray<>(SIZE);
+
+	/**
+	 * Hash table of the interned colors : index + 1 of the color of each RGB
+	 * value, with linear probing (0 for an empty slot). Guarded by the class lock.
+	 */
+	private static final int[] table = new int[SIZE * 2];
+	private static int count = 0;
+
+	static {
+		intern(0, 0, 0); // empty cells
+		intern(20, 255, 255); // stick
+		intern(240, 240, 20); // box
+		intern(130, 30, 130); // stairs
+		intern(40, 255, 40); // right snake
+		intern(0, 67, 0); // left snake
+		intern(40, 50, 255); // left L
+		intern(255, 160, 20); // right L
+	}
+
+	private TetriminoPalette() { }
+
+	/**
+	 * Get the color of a palette index.
+	 * @return The color, which must not be modified (null for an unused index).
+	 */
+	public static TetriminoColor get(final int index) { return colors.get(index); }
+
+	/**
+	 * Get the palette index of the color of a tetrimino type.
+	 */
+	public static int indexOf(final TetriminoType type) { return FIRST_TYPE + type.ordinal(); }
+
+	/**
+	 * Get the palette index of a color, interning it if needed.
+	 */
+	public static int indexOf(final TetriminoColor color) {
+		final int rgb = rgb(color);
+		final long entry = color.paletteEntry;
+		if (entry >>> 8 == rgb) return (int) entry & 0xFF;
+
+		final int index = intern(rgb >>> 16, (rgb >>> 8) & 0xFF, rgb & 0xFF);
+		color.paletteEntry = ((long) rgb << 8) | index;
+		return index;
+	}
+
+	/**
+	 * Get the interned instance of a color.
+	 */
+	public static TetriminoColor intern(final TetriminoColor color) {
+		return colors.get(indexOf(color));
+	}
+
+	/**
+	 * Get the palette index of a color, interning it if needed.
+	 * @return The index of the color, or of the closest color of the palette
+	 * if it is full.
+	 */
+	public static synchronized int intern(final int red, final int green, final int blue) {
+		final int rgb = (red << 16) | (green << 8) | blue;
+		int slot = hash(rgb);
+		while (table[slot] != 0) {
+			final int index = table[slot] - 1;
+			if (rgb(colors.get(index)) == rgb) return index;
+			slot = (slot + 1) & (table.length - 1);
+		}
+
+		if (count == SIZE) return closest(red, green, blue);
+
+		colors.set(count, new TetriminoColor(red, green, blue, count));
+		table[slot] = count + 1;
+		return count++;
+	}
+
+	/**
+	 * Get the number of colors of the palette.
+	 */
+	public static synchronized int size() { return count; }
+
+	/**
+	 * Find the color of the palette closest to the given one.
+	 */
+	private static int closest(final int red, final int green, final int blue) {
+		int best = EMPTY, bestDistance = Integer.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			final TetriminoColor color = colors.get(i);
+			final int r = color.red() - red, g = color.green() - green, b = color.blue() - blue;
+			final int distance = r * r + g * g + b * b;
+			if (distance < bestDistance) {
+				best = i;
+				bestDistance = distance;
+			}
+		}
+		return best;
+	}
+
+	private static int rgb(final TetriminoColor color) {
+		return (color.red() << 16) | (color.green() << 8) | color.blue();
+	}
+
+	private static int hash(final int rgb) {
+		return (rgb * 0x9E3779B1) >>> (32 - Integer.numberOfTrailingZeros(SIZE * 2));
+	}
+
+}
@@ -0,0 +1,315 @@
+package model;
+
+/**
+ * The immutable geometry of a tetrimino type in a given rotation state.
+ *
+ * The shapes of all the types and rotations are computed once when the class is
+ * loaded, so that the hot paths (collision, locking, rendering) only iterate over
+ * the actual blocks of a tetrimino instead of testing every cell of its 4x4 area.
+ */
+public final class TetriminoShape {
+	/**
+	 * Side of the square area containing a tetrimino, in blocks.
+	 */
+	public static final int SIZE = 4;
+
+	/**
+	 * Number of blocks composing a tetrimino.
+	 */
+	public static final int BLOCK_COUNT = 4;
+
+	/**
+	 * Number of rotation states of a tetrimino.
+	 */
+	public static final int ROTATIONS = 4;
+
+	/**
+	 * All the shapes. First dimension is the tetrimino type's ordinal, second one
+	 * is the rotation index.
+	 */
+	private static final TetriminoShape[][] SHAPES = new TetriminoShape[TetriminoType.values().length][ROTATIONS];
+
+	static {
+		for (final TetriminoType type : TetriminoType.values()) {
+			final boolean[][][] blocks = definition(type);
+			for (int r = 0; r < ROTATIONS; r++) {
+				SHAPES[type.ordinal()][r] = new TetriminoShape(type, r, blocks[r]);
+			}
+		}
+	}
+
+	private final TetriminoType type;
+	private final int rotation;
+
+	/**
+	 * 16-bit mask of the blocks : bit (y * SIZE + x) is set if a block is present at (x, y).
+	 */
+	private final int mask;
+
+	/**
+	 * Horizontal bitmask of each row : bit x of rowMasks[y] is set if a block is
+	 * present at (x, y). This matches the row masks of TetrisBitBoard once shifted
+	 * by the horizontal position of the tetrimino.
+	 */
+	private final int[] rowMasks = new int[SIZE];
+
+	/**
+	 * Bounding box of the blocks, inclusive.
+	 */
+	private final int minX, minY, maxX, maxY;
+
+	/**
+	 * Offsets of the blocks inside the 4x4 area, ordered by row then column.
+	 */
+	private final int[] blocksX = new int[BLOCK_COUNT], blocksY = new int[BLOCK_COUNT];
+
+	/**
+	 * Bottom profile : vertical offset of the lowest block of each column, -1 for
+	 * the empty columns.
+	 */
+	private final int[] bottoms = { -1, -1, -1, -1 };
+
+	/**
+	 * Top profile : vertical offset of the highest block of each column, -1 for
+	 * the empty columns.
+	 */
+	private final int[] tops = { -1, -1, -1, -1 };
+
+	private TetriminoShape(final TetriminoType type, final int rotation, final boolean[][] blocks) {
+		this.type = type;
+		this.rotation = rotation;
+
+		int mask = 0, count = 0;
+		int minX = SIZE, minY = SIZE, maxX = -1, maxY = -1;
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (!blocks[x][y]) continue;
+				mask |= 1 << (y * SIZE + x);
+				rowMasks[y] |= 1 << x;
+				bottoms[x] = y;
+				if (tops[x] < 0) tops[x] = y;
+				blocksX[count] = x;
+				blocksY[count] = y;
+				++count;
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+			}
+		}
+		if (count != BLOCK_COUNT)
+			throw new IllegalStateException(String.format(
+				"TetriminoShape : %s (rotation %d) must have %d blocks.", type, rotation, BLOCK_COUNT));
+
+		this.mask = mask;
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+	}
+
+	/**
+	 * Get the shape of a tetrimino type in a given rotation state.
+	 * @param type Type of the tetrimino.
+	 * @param rotation Rotation index (0-3).
+	 */
+	public static TetriminoShape get(final TetriminoType type, final int rotation) {
+		return SHAPES[type.ordinal()][rotation];
+	}
+
+	public TetriminoType type() { return type; }
+	public int rotation() { return rotation; }
+	public int mask() { return mask; }
+
+	/**
+	 * Check if a block is present at the given position inside the 4x4 area.
+	 */
+	public boolean isPresent(final int x, final int y) {
+		if (x < 0 || x >= SIZE || y < 0 || y >= SIZE)
+			return false;
+		return (mask & (1 << (y * SIZE + x))) != 0;
+	}
+
+	/**
+	 * Get the horizontal bitmask of a row (bit x is set if a block is present at (x, y)).
+	 * @param y Row index (0-3).
+	 */
+	public int rowMask(final int y) { return rowMasks[y]; }
+
+	public int minX() { return minX; }
+	public int minY() { return minY; }
+	public int maxX() { return maxX; }
+	public int maxY() { return maxY; }
+
+	/**
+	 * Get the horizontal offset of a block inside the 4x4 area.
+	 * @param i Index of the block (0-3).
+	 */
+	public int blockX(final int i) { return blocksX[i]; }
+
+	/**
+	 * Get the vertical offset of a block inside the 4x4 area.
+	 * @param i Index of the block (0-3).
+	 */
+	public int blockY(final int i) { return blocksY[i]; }
+
+	/**
+	 * Get the vertical offset of the lowest block of a column of the 4x4 area.
+	 * @param x Column index (0-3).
+	 * @return The offset, or -1 if the column is empty.
+	 */
+	public int bottom(final int x) { return bottoms[x]; }
+
+	/**
+	 * Get the vertical offset of the highest block of a column of the 4x4 area.
+	 * @param x Column index (0-3).
+	 * @return The offset, or -1 if the column is empty.
+	 */
+	public int top(final int x) { return tops[x]; }
+
+	/**
+	 * The array defining the geometry of a tetrimino type. True means that a block
+	 * is present.
+	 * First dimension is the rotation index (0-3), second dimension is X (horizontal axis) and
+	 * third dimension is Y (vertical axis).
+	 */
+	private static boolean[][][] definition(final TetriminoType type) {
+		switch (type) {
+		case STICK:
+			return new boolean[][][] {
+				{
+					{ true, true, true, true }, { false, false, false, false },
+				    { false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, false, true, false }, { false, false, true, false },
+				    { false, false, true, false }, { false, false, true, false },
+				},
+				{
+					{ false, false, false, false }, { false, false, false, false },
+					{ true, true, true, true }, { false, false, false, false },
+				},
+				{
+					{ false, true, false, false }, { false, true, false, false },
+					{ false, true, false, false }, { false, true, false, false },
+				},
+			};
+		case BOX:
+			return new boolean[][][] {
+				{
+					{ true, true, false, false }, { true, true, false, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ true, true, false, false }, { true, true, false, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ true, true, false, false }, { true, true, false, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ true, true, false, false }, { true, true, false, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+			};
+		case STAIRS:
+			return new boolean[][][] {
+				{
+					{ false, true, false, false }, { true, true, true, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, true, false, false }, { false, true, true, false },
+					{ false, true, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, false, false, false }, { true, true, true, false },
+					{ false, true, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, true, false, false }, { true, true, false, false },
+					{ false, true, false, false }, { false, false, false, false },
+				},
+			};
+		case RIGHT_SNAKE:
+			return new boolean[][][] {
+				{
+					{ false, false, true, true }, { false, true, true, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, false, true, false }, { false, false, true, true },
+					{ false, false, false, true }, { false, false, false, false },
+				},
+				{
+					{ false, false, false, false }, { false, false, true, true },
+					{ false, true, true, false }, { false, false, false, false }
+				},
+				{
+					{ false, true, false, false }, { false, true, true, false },
+					{ false, false, true, false }, { false, false, false, false },
+				},
+			};
+		case LEFT_SNAKE:
+			return new boolean[][][] {
+				{
+					{ true, true, false, false }, { false, true, true, false },
+					{ false, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, false, true, false }, { false, true, true, false },
+					{ false, true, false, false }, { false, false, false, false },
+				},
+				{
+					{ false, false, false, false }, { true, true, false, false },
+					{ false, true, true, false }, { false, false, false, false }
+				},
+				{
+					{ false, true, false, false }, { true, true, false, false },
+					{ true, false, false, false }, { false, false, false, false },
+				},
+			};
+		case LEFT_L:
+			return new boolean[][][] {
+				{
+					{ true, false, false, false }, { true, true, true, false },
+					{ false, false, false, false }, { false, false, false, false }
+				},
+				{
+					{ false, true, true, false }, { false, true, false, false },
+					{ false, true, false, false }, { false, false, false, false }
+				},
+				{
+					{ false, false, false, false }, { true, true, true, false },
+					{ false, false, true, false }, { false, false, false, false },
+				},
+				{
+					{ false, true, false, false }, { false, true, false, false },
+					{ true, true, false, false }, { false, false, false, false },
+				},
+			};
+		case RIGHT_L:
+			return new boolean[][][] {
+				{
+					{ false, false, true, false }, { true, true, true, false },
+					{ false, false, false, false }, { false, false, false, false }
+				},
+				{
+					{ false, true, false, false }, { false, true, false, false },
+					{ false, true, true, false }, { false, false, false, false },
+				},
+				{
+					{ false, false, false, false }, { true, true, true, false },
+					{ true, false, false, false }, { false, false, false, false },
+				},
+				{
+					{ true, true, false, false }, { false, true, false, false },
+					{ false, true, false, false }, { false, false, false, false },
+				},
+			};
+		}
+		return null;
+	}
+
+}
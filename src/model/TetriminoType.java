@@ -27,10 +27,15 @@ public enum TetriminoType {
 	LEFT_L,
 	RIGHT_L,;
 
+	/**
+	 * NB : values() returns a new array at each call.
+	 */
+	private static final TetriminoType[] VALUES = values();
+
 	/**
 	 * Get a random TetriminoType.
 	 */
     public static TetriminoType getRandomType(Random random) {
-    	return TetriminoType.values()[random.nextInt(TetriminoType.values().length)];
+    	return VALUES[random.nextInt(VALUES.length)];
     }
 }
@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Enumerates the actions a player can perform on the current tetrimino.
+ */
+public enum TetrisAction {
+	NONE,
+	LEFT,
+	RIGHT,
+	ROTATE,
+	SOFT_DROP,
+	HARD_DROP,;
+
+	private static final TetrisAction[] VALUES = values();
+
+	/**
+	 * Get the action with the given ordinal, without copying the values array.
+	 */
+	public static TetrisAction fromOrdinal(final int ordinal) {
+		return VALUES[ordinal];
+	}
+}
@@ -0,0 +1,129 @@
+package model;
+
+/**
+ * TetrisBoard implementation storing the occupancy of each row as an int bitmask.
+ *
+ * Bit x of a row mask is set if the cell at (x, y) is occupied, which turns the
+ * full line test into a single comparison and the collision test into a few AND
+ * operations. The colors of the cells are stored separately as their indices
+ * in TetriminoPalette.
+ */
+public class TetrisBitBoard extends TetrisBoard {
+	/**
+	 * Row mask of a complete line.
+	 */
+	private final int fullMask = (1 << width) - 1;
+
+	/**
+	 * The occupancy of each row, from top (0) to bottom (height - 1).
+	 */
+	private final int[] rows = new int[height];
+
+	/**
+	 * Palette index of the color of each cell, stored row by row.
+	 * Index TetriminoPalette.EMPTY is the color of an empty cell.
+	 */
+	private final byte[] colors = new byte[height * width];
+
+	public TetrisBitBoard(final TetrisConfiguration configuration) {
+		super(configuration);
+	}
+
+	@Override
+	public void addTetrimino(final Tetrimino tetrimino) {
+		final byte colorIndex = (byte) tetrimino.getColor().paletteIndex();
+
+		final TetriminoShape shape = tetrimino.getShape();
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			final int x = tetrimino.getX() + shape.blockX(i), y = tetrimino.getY() + shape.blockY(i);
+			if (x < 0 || x >= width || y < 0 || y >= height) continue;
+			final boolean wasPresent = (rows[y] & (1 << x)) != 0;
+			rows[y] |= 1 << x;
+			colors[y * width + x] = colorIndex;
+			if (!wasPresent) blockAdded(x, y);
+		}
+	}
+
+	@Override
+	protected boolean isRowFull(final int y) { return rows[y] == fullMask; }
+
+	@Override
+	protected void moveRow(final int fromY, final int toY) {
+		rows[toY] = rows[fromY];
+		System.arraycopy(colors, fromY * width, colors, toY * width, width);
+	}
+
+	@Override
+	protected void clearRow(final int y) {
+		rows[y] = 0;
+		for (int x = y * width, end = x + width; x < end; x++) {
+			colors[x] = TetriminoPalette.EMPTY;
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (int y = 0; y < height; y++) {
+			rows[y] = 0;
+		}
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = TetriminoPalette.EMPTY;
+		}
+		resetIndexes();
+	}
+
+	@Override
+	public boolean isPresent(final int x, final int y) { return (rows[y] & (1 << x)) != 0; }
+
+	@Override
+	public TetriminoColor getColor(final int x, final int y) {
+		return TetriminoPalette.get(colors[y * width + x] & 0xFF);
+	}
+
+	/**
+	 * Get the palette index of the color of a cell (TetriminoPalette.EMPTY if empty).
+	 */
+	public int getColorIndex(final int x, final int y) { return colors[y * width + x] & 0xFF; }
+
+	@Override
+	public void setBlock(final int x, final int y, final TetriminoColor color) {
+		final boolean wasPresent = (rows[y] & (1 << x)) != 0;
+		if (color == null) {
+			rows[y] &= ~(1 << x);
+			colors[y * width + x] = TetriminoPalette.EMPTY;
+			if (wasPresent) blockRemoved(x, y);
+		} else {
+			final byte colorIndex = (byte) color.paletteIndex();
+			rows[y] |= 1 << x;
+			colors[y * width + x] = colorIndex;
+			if (!wasPresent) blockAdded(x, y);
+		}
+	}
+
+	@Override
+	public boolean fits(final TetriminoShape shape, final int posX, final int posY) {
+		return TetrisRules.fits(rows, 0, width, height, shape, posX, posY);
+	}
+
+	@Override
+	public int getRow(final int y) { return rows[y]; }
+
+	/**
+	 * Copy the content of the board into a snapshot.
+	 */
+	void save(final TetrisSnapshot snapshot) {
+		System.arraycopy(rows, 0, snapshot.rows, 0, height);
+		System.arraycopy(colors, 0, snapshot.colors, 0, colors.length);
+		saveIndexes(snapshot);
+	}
+
+	/**
+	 * Restore the content of the board from a snapshot.
+	 */
+	void restore(final TetrisSnapshot snapshot) {
+		System.arraycopy(snapshot.rows, 0, rows, 0, height);
+		System.arraycopy(snapshot.colors, 0, colors, 0, colors.length);
+		restoreIndexes(snapshot);
+	}
+
+}
@@ -4,121 +4,438 @@ package model;
  * The TetrisBoard class modelizes all the static tetrimino blocks present in the game.
  *
  * This excludes the blocks of the currently played tetrimino, which is dynamic.
+ *
+ * Two implementations share this API : TetrisCellBoard, backed by a grid of
+ * TetrisBoardCell objects, and TetrisBitBoard, backed by one bitmask per row.
  */
-public class TetrisBoard {
+public abstract class TetrisBoard {
 	private static final char DEBUG_PRESENT = 'x'; // character representing a visible cell
 	private static final char DEBUG_ABSENT = '.';  // character representing a null cell
 
-	public static int WIDTH = 10;
-	public static int HEIGHT = 22;
+	/**
+	 * The rules of the game the board belongs to.
+	 */
+	protected final TetrisConfiguration configuration;
 
 	/**
-	 * The internal representation of the board.
-	 * NB : first dimension is Y (vertical), second dimension is X (horizontal).
+	 * Size of the board, in blocks.
 	 */
-	private TetrisBoardCell[][] cells = new TetrisBoardCell[HEIGHT][WIDTH];
+	protected final int width, height;
 
-	public TetrisBoard() {
-		for (int y = 0; y < HEIGHT; y++) {
-			for (int x = 0; x < WIDTH; x++) {
-				cells[y][x] = new TetrisBoardCell(false, new TetriminoColor(0, 0, 0));
-			}
-		}
+	/**
+	 * Number of rows moved downwards by the last call to checkForCompleteLines.
+	 */
+	private int rowsMovedByLastClear = 0;
+
+	/**
+	 * Zobrist hash of the occupied cells.
+	 */
+	private long hash = 0;
+
+	/**
+	 * The skyline : height of each column (0 if empty, 'height' if its top cell is
+	 * occupied) and number of holes (empty cells below the top block) of each column.
+	 *
+	 * The hash and the skyline are maintained by the implementations through
+	 * blockAdded and blockRemoved, and by the line clears.
+	 */
+	private final int[] columnHeights;
+	private final int[] columnHoles;
+	private int aggregateHeight = 0;
+	private int holes = 0;
+
+	protected TetrisBoard(final TetrisConfiguration configuration) {
+		if (configuration == null)
+			throw new IllegalArgumentException("TetrisBoard : null TetrisConfiguration.");
+		this.configuration = configuration;
+		this.width = configuration.width();
+		this.height = configuration.height();
+		columnHeights = new int[width];
+		columnHoles = new int[width];
 	}
 
 	/**
 	 * Add a new, 'frozen' tetrimino to the board.
 	 */
-	public void addTetrimino(final Tetrimino tetrimino) {
-		for (int j = 0; j < 4 && (tetrimino.getY() + j) < HEIGHT; j++) {
-			for (int i = 0; i < 4 && (tetrimino.getX() + i) < WIDTH; i++) {
-				if (!tetrimino.getBlock(i, j)) continue;
-				final TetrisBoardCell cell = cells[tetrimino.getY() + j][tetrimino.getX() + i];
-				cell.present = true;
-				cell.color = new TetriminoColor(tetrimino.getColor());
-			}
-		}
-	}
+	public abstract void addTetrimino(final Tetrimino tetrimino);
 
 	/**
 	 * Check for complete lines, clear them and return the number of cleared lines.
 	 *
-	 * A complete line is cleared from the board by erasing it and dropping down the
-	 * other lines above it by 1 tile.
+	 * All the complete lines are found and removed in a single bottom-up pass,
+	 * each remaining line being moved at most once directly to its final position.
 	 */
 	public int checkForCompleteLines() {
 		int numberOfLinesCleared = 0;
+		int rowsMoved = 0;
+		int clearedTops = 0; // columns whose highest block is cleared
 
-		for (int y = 0; y < HEIGHT; y++) {
-			boolean complete = true;
-			for (int x = 0; x < WIDTH; x++) {
-				if (!cells[y][x].present) {
-					complete = false;
-					break;
+		// compact the remaining lines downwards
+		int targetY = height - 1;
+		for (int y = height - 1; y >= 0; y--) {
+			if (isRowFull(y)) {
+				hash ^= Zobrist.rowKey(getRow(y), y);
+				for (int x = 0; x < width; x++) {
+					if (columnHeights[x] == height - y) clearedTops |= 1 << x;
 				}
-			}
-			if (complete) {
-				clearLine(y);
 				++numberOfLinesCleared;
+				continue;
 			}
+			if (targetY != y) {
+				if (numberOfLinesCleared > 0) {
+					final int row = getRow(y);
+					hash ^= Zobrist.rowKey(row, y) ^ Zobrist.rowKey(row, targetY);
+				}
+				moveRow(y, targetY);
+				++rowsMoved;
+			}
+			--targetY;
 		}
 
+		// empty the freed lines at the top
+		for (int y = targetY; y >= 0; y--) {
+			clearRow(y);
+		}
+
+		// a complete line has a block in every column and no hole : the columns
+		// simply get lower, unless their highest block was cleared (then the holes
+		// below it are uncovered)
+		if (numberOfLinesCleared > 0) {
+			for (int x = 0; x < width; x++) {
+				if ((clearedTops & (1 << x)) != 0) {
+					updateColumn(x);
+				} else {
+					columnHeights[x] -= numberOfLinesCleared;
+					aggregateHeight -= numberOfLinesCleared;
+				}
+			}
+		}
+
+		rowsMovedByLastClear = rowsMoved;
 		return numberOfLinesCleared;
 	}
 
 	/**
-	 * Clear a completed line and drop down the lines above it.
-	 * @param lineY Vertical position of the line to clear (0 : top).
+	 * Check if a line of the board is complete.
+	 * @param y Vertical position of the line (0 : top).
+	 */
+	protected abstract boolean isRowFull(final int y);
+
+	/**
+	 * Move the content of a line to another one.
+	 *
+	 * The content of the source line is undefined afterwards : it must either be
+	 * overwritten by another move or cleared.
+	 *
+	 * @param fromY Vertical position of the source line.
+	 * @param toY Vertical position of the destination line.
+	 */
+	protected abstract void moveRow(final int fromY, final int toY);
+
+	/**
+	 * Remove all the blocks of a line.
+	 * @param y Vertical position of the line (0 : top).
+	 */
+	protected abstract void clearRow(final int y);
+
+	/**
+	 * Get the Zobrist hash of the occupied cells of the board.
+	 *
+	 * Two boards with the same occupied cells have the same hash, whatever the
+	 * colors of their blocks. The hash is maintained incrementally, so this is
+	 * constant time.
+	 */
+	public long getHash() { return hash; }
+
+	/**
+	 * Update the hash and the skyline after an empty cell was filled. Must be
+	 * called by the implementations, except for the line clears.
+	 */
+	protected final void blockAdded(final int x, final int y) {
+		hash ^= Zobrist.cellKey(x, y);
+
+		final int top = height - y, previousTop = columnHeights[x];
+		if (top > previousTop) { // the empty cells below become holes
+			aggregateHeight += top - previousTop;
+			columnHeights[x] = top;
+			columnHoles[x] += top - previousTop - 1;
+			holes += top - previousTop - 1;
+		} else { // a hole was filled
+			--columnHoles[x];
+			--holes;
+		}
+	}
+
+	/**
+	 * Update the hash and the skyline after an occupied cell was emptied. Must
+	 * be called by the implementations, except for the line clears.
+	 */
+	protected final void blockRemoved(final int x, final int y) {
+		hash ^= Zobrist.cellKey(x, y);
+
+		if (height - y < columnHeights[x]) { // a new hole
+			++columnHoles[x];
+			++holes;
+			return;
+		}
+
+		// the top block was removed : find the next one, the holes above it disappear
+		int newY = y + 1;
+		while (newY < height && !isPresent(x, newY)) {
+			++newY;
+		}
+		final int top = height - newY, freedHoles = newY - y - 1;
+		aggregateHeight -= columnHeights[x] - top;
+		columnHeights[x] = top;
+		columnHoles[x] -= freedHoles;
+		holes -= freedHoles;
+	}
+
+	/**
+	 * Recompute the skyline of a column from its cells.
+	 */
+	private void updateColumn(final int x) {
+		int y = 0;
+		while (y < height && !isPresent(x, y)) {
+			++y;
+		}
+		int columnHoleCount = 0;
+		for (int j = y + 1; j < height; j++) {
+			if (!isPresent(x, j)) ++columnHoleCount;
+		}
+
+		aggregateHeight += height - y - columnHeights[x];
+		columnHeights[x] = height - y;
+		holes += columnHoleCount - columnHoles[x];
+		columnHoles[x] = columnHoleCount;
+	}
+
+	/**
+	 * Reset the hash and the skyline of an empty board.
+	 */
+	protected final void resetIndexes() {
+		hash = 0;
+		for (int x = 0; x < width; x++) {
+			columnHeights[x] = columnHoles[x] = 0;
+		}
+		aggregateHeight = holes = 0;
+	}
+
+	/**
+	 * Copy the hash and the skyline into a snapshot.
+	 */
+	void saveIndexes(final TetrisSnapshot snapshot) {
+		snapshot.boardHash = hash;
+		System.arraycopy(columnHeights, 0, snapshot.columnHeights, 0, width);
+		System.arraycopy(columnHoles, 0, snapshot.columnHoles, 0, width);
+		snapshot.aggregateHeight = aggregateHeight;
+		snapshot.holes = holes;
+	}
+
+	/**
+	 * Restore the hash and the skyline from a snapshot.
+	 */
+	void restoreIndexes(final TetrisSnapshot snapshot) {
+		hash = snapshot.boardHash;
+		System.arraycopy(snapshot.columnHeights, 0, columnHeights, 0, width);
+		System.arraycopy(snapshot.columnHoles, 0, columnHoles, 0, width);
+		aggregateHeight = snapshot.aggregateHeight;
+		holes = snapshot.holes;
+	}
+
+	/**
+	 * Get the height of a column : 0 if it is empty, otherwise the distance from
+	 * the bottom of the board to the top of its highest block.
+	 */
+	public int getColumnHeight(final int x) { return columnHeights[x]; }
+
+	/**
+	 * Get the number of holes of a column, i.e. of empty cells below its highest block.
 	 */
-	private void clearLine(final int lineY) {
-		// clear the line
-		for (int x = 0; x < WIDTH; x++) {
-			final TetrisBoardCell cell = cells[lineY][x];
-			cell.present = false;
-			cell.color.set(0, 0, 0);
+	public int getColumnHoles(final int x) { return columnHoles[x]; }
+
+	/**
+	 * Get the sum of the heights of the columns.
+	 */
+	public int getAggregateHeight() { return aggregateHeight; }
+
+	/**
+	 * Get the total number of holes.
+	 */
+	public int getHoles() { return holes; }
+
+	/**
+	 * Get the sum of the height differences between adjacent columns.
+	 */
+	public int getBumpiness() {
+		int bumpiness = 0;
+		for (int x = 1; x < width; x++) {
+			bumpiness += Math.abs(columnHeights[x] - columnHeights[x - 1]);
 		}
+		return bumpiness;
+	}
 
-		// move the upper lines' blocks downwards
-		for (int y = lineY - 1; y >= 0; y--) {
-			for (int x = 0; x < WIDTH; x++) {
-				final TetrisBoardCell cell = cells[y][x];
-				if (!cell.present) continue;
+	/**
+	 * Get the height of the highest column.
+	 */
+	public int getMaxHeight() {
+		int max = 0;
+		for (int x = 0; x < width; x++) {
+			max = Math.max(max, columnHeights[x]);
+		}
+		return max;
+	}
 
-				// clear current cell
-				cell.present = false;
+	/**
+	 * Check if the given tetrimino would be entirely above the skyline at the given
+	 * position (and inside the board), which means that it fits.
+	 *
+	 * A false result doesn't mean that the tetrimino doesn't fit : it may fit in
+	 * the holes below the skyline, which only the fits method checks.
+	 */
+	public boolean isAboveSkyline(final Tetrimino tetrimino, final int posX, final int posY) {
+		final TetriminoShape shape = tetrimino.getShape();
+		if (posX + shape.minX() < 0 || posX + shape.maxX() >= width
+			|| posY + shape.minY() < 0 || posY + shape.maxY() >= height)
+			return false;
 
-				// 'move' it downwards
-				final TetrisBoardCell newCell = cells[y + 1][x];
-				newCell.present = true;
-				newCell.color = new TetriminoColor(cell.color); // copy
+		for (int i = shape.minX(); i <= shape.maxX(); i++) {
+			final int bottom = shape.bottom(i);
+			if (bottom >= 0 && posY + bottom >= height - columnHeights[posX + i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the vertical position where the given tetrimino lands if dropped from
+	 * the given position.
+	 *
+	 * When the tetrimino is above the skyline, the landing row is directly
+	 * computed from its bottom profile and the column heights. Otherwise (below
+	 * an overhang), the drop is simulated row by row.
+	 *
+	 * @param tetrimino The tetrimino to drop. Its own position is ignored.
+	 * @param posX Horizontal position of the tetrimino.
+	 * @param posY Vertical position of the tetrimino, where it must fit.
+	 * @return The vertical position of the landed tetrimino (posY if it can't fall).
+	 */
+	public int getLandingY(final Tetrimino tetrimino, final int posX, final int posY) {
+		if (isAboveSkyline(tetrimino, posX, posY)) {
+			final TetriminoShape shape = tetrimino.getShape();
+			int landingY = Integer.MAX_VALUE;
+			for (int i = shape.minX(); i <= shape.maxX(); i++) {
+				final int bottom = shape.bottom(i);
+				if (bottom >= 0)
+					landingY = Math.min(landingY, height - columnHeights[posX + i] - 1 - bottom);
 			}
+			return landingY;
 		}
+
+		int y = posY;
+		while (fits(tetrimino, posX, y + 1)) {
+			++y;
+		}
+		return y;
 	}
 
+	/**
+	 * Get the number of rows that were moved downwards by the last line clear.
+	 *
+	 * Each row is counted once, however many complete lines were below it.
+	 */
+	public int getRowsMovedByLastClear() { return rowsMovedByLastClear; }
+
 	/**
 	 * Completely clear the board from any existing cell.
 	 */
-	public void clear() {
-		for (int y = 0; y < HEIGHT; y++) {
-			for (int x = 0; x < WIDTH; x++) {
-				final TetrisBoardCell cell = cells[y][x];
-				cell.present = false;
-				cell.color.set(0, 0, 0);
-			}
+	public abstract void clear();
+
+	/**
+	 * Check if the cell at the given position is occupied by a block.
+	 * @param x Horizontal position (0 : left).
+	 * @param y Vertical position (0 : top).
+	 */
+	public abstract boolean isPresent(final int x, final int y);
+
+	/**
+	 * Get the color of the cell at the given position.
+	 *
+	 * The returned instance is shared with the board and must not be modified.
+	 *
+	 * @param x Horizontal position (0 : left).
+	 * @param y Vertical position (0 : top).
+	 */
+	public abstract TetriminoColor getColor(final int x, final int y);
+
+	/**
+	 * Set or clear the block at the given position.
+	 * @param x Horizontal position (0 : left).
+	 * @param y Vertical position (0 : top).
+	 * @param color Color of the new block, or null to clear the cell.
+	 */
+	public abstract void setBlock(final int x, final int y, final TetriminoColor color);
+
+	/**
+	 * Check if the given tetrimino would fit at the given position, i.e. if all
+	 * its blocks would be inside the board and on free cells.
+	 *
+	 * @param tetrimino The tetrimino to test. Its own position is ignored.
+	 * @param posX Horizontal position to test.
+	 * @param posY Vertical position to test.
+	 *
+	 * @return True if the tetrimino fits, false otherwise.
+	 */
+	public final boolean fits(final Tetrimino tetrimino, final int posX, final int posY) {
+		return fits(tetrimino.getShape(), posX, posY);
+	}
+
+	/**
+	 * Check if a tetrimino with the given shape would fit at the given position.
+	 *
+	 * @param shape Shape of the tetrimino (type and rotation state).
+	 * @param posX Horizontal position to test.
+	 * @param posY Vertical position to test.
+	 *
+	 * @return True if the tetrimino fits, false otherwise.
+	 */
+	public boolean fits(final TetriminoShape shape, final int posX, final int posY) {
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			final int x = posX + shape.blockX(i), y = posY + shape.blockY(i);
+
+			if (x < 0 || x >= width || y < 0 || y >= height) return false; // borders
+			if (isPresent(x, y)) return false; // other blocks
+		}
+		return true;
+	}
+
+	/**
+	 * Get the occupancy bitmask of a row.
+	 * @param y Vertical position of the row (0 : top).
+	 * @return Bitmask where bit x is set if the cell at (x, y) is occupied.
+	 */
+	public int getRow(final int y) {
+		int row = 0;
+		for (int x = 0; x < width; x++) {
+			if (isPresent(x, y)) row |= 1 << x;
 		}
+		return row;
 	}
 
+	public TetrisConfiguration getConfiguration() { return configuration; }
+	public int getWidth() { return width; }
+	public int getHeight() { return height; }
+
 	/**
 	 * Returns a string representation of the board. Useful for debugging.
 	 */
 	@Override
 	public String toString() {
 		// we use a StringBuilder since it's faster than string concatenation in loops
-		final StringBuilder builder = new StringBuilder((WIDTH + 1) * HEIGHT);
+		final StringBuilder builder = new StringBuilder((width + 1) * height);
 
-		for (int y = 0; y < HEIGHT; y++) {
-			for (int x = 0; x < WIDTH; x++) {
-				builder.append(cells[y][x].present ? DEBUG_PRESENT : DEBUG_ABSENT);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				builder.append(isPresent(x, y) ? DEBUG_PRESENT : DEBUG_ABSENT);
 			}
 			builder.append('\n'); // line break
 		}
@@ -126,26 +443,4 @@ public class TetrisBoard {
 		return builder.toString();
 	}
 
-	/**
-	 * <pre>
-	 * Get the two-dimensional array describing the board's cells.
-	 * NB : the array's first dimension is the Y axis (vertical), and its second
-	 * one is the X axis (horizontal).
-	 * The coordinate system works as follows :
-	 *
-	 * +---------> X
-	 * |
-	 * |
-	 * |
-	 * |
-	 * v
-	 *
-	 * Y
-	 *
-	 * </pre>
-	 *
-	 * @return Cells of the board.
-	 */
-	public TetrisBoardCell[][] getCells() { return cells; }
-
 }
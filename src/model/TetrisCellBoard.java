@@ -0,0 +1,122 @@
+package model;
+
+/**
+ * TetrisBoard implementation storing each cell as a TetrisBoardCell object.
+ *
+ * The colors of the cells are the instances interned by TetriminoPalette.
+ */
+public class TetrisCellBoard extends TetrisBoard {
+
+	/**
+	 * The internal representation of the board.
+	 * NB : first dimension is Y (vertical), second dimension is X (horizontal).
+	 */
+	private TetrisBoardCell[][] cells = new TetrisBoardCell[height][width];
+
+	public TetrisCellBoard(final TetrisConfiguration configuration) {
+		super(configuration);
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				cells[y][x] = new TetrisBoardCell(false, TetriminoPalette.get(TetriminoPalette.EMPTY));
+			}
+		}
+	}
+
+	@Override
+	public void addTetrimino(final Tetrimino tetrimino) {
+		final TetriminoColor color = TetriminoPalette.intern(tetrimino.getColor());
+		final TetriminoShape shape = tetrimino.getShape();
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			final int x = tetrimino.getX() + shape.blockX(i), y = tetrimino.getY() + shape.blockY(i);
+			if (x < 0 || x >= width || y < 0 || y >= height) continue;
+			final TetrisBoardCell cell = cells[y][x];
+			final boolean wasPresent = cell.present;
+			cell.present = true;
+			cell.color = color;
+			if (!wasPresent) blockAdded(x, y);
+		}
+	}
+
+	@Override
+	protected boolean isRowFull(final int y) {
+		final TetrisBoardCell[] row = cells[y];
+		for (int x = 0; x < width; x++) {
+			if (!row[x].present) return false;
+		}
+		return true;
+	}
+
+	@Override
+	protected void moveRow(final int fromY, final int toY) {
+		// swap the rows so that the cell objects are recycled instead of copied
+		final TetrisBoardCell[] row = cells[toY];
+		cells[toY] = cells[fromY];
+		cells[fromY] = row;
+	}
+
+	@Override
+	protected void clearRow(final int y) {
+		for (int x = 0; x < width; x++) {
+			final TetrisBoardCell cell = cells[y][x];
+			cell.present = false;
+			cell.color = TetriminoPalette.get(TetriminoPalette.EMPTY);
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				final TetrisBoardCell cell = cells[y][x];
+				cell.present = false;
+				cell.color = TetriminoPalette.get(TetriminoPalette.EMPTY);
+			}
+		}
+		resetIndexes();
+	}
+
+	@Override
+	public boolean isPresent(final int x, final int y) { return cells[y][x].present; }
+
+	@Override
+	public TetriminoColor getColor(final int x, final int y) { return cells[y][x].color; }
+
+	@Override
+	public void setBlock(final int x, final int y, final TetriminoColor color) {
+		final TetrisBoardCell cell = cells[y][x];
+		final boolean wasPresent = cell.present;
+		if (color == null) {
+			cell.present = false;
+			cell.color = TetriminoPalette.get(TetriminoPalette.EMPTY);
+			if (wasPresent) blockRemoved(x, y);
+		} else {
+			cell.present = true;
+			cell.color = TetriminoPalette.intern(color);
+			if (!wasPresent) blockAdded(x, y);
+		}
+	}
+
+	/**
+	 * <pre>
+	 * Get the two-dimensional array describing the board's cells.
+	 * NB : the array's first dimension is the Y axis (vertical), and its second
+	 * one is the X axis (horizontal).
+	 * The coordinate system works as follows :
+	 *
+	 * +---------> X
+	 * |
+	 * |
+	 * |
+	 * |
+	 * v
+	 *
+	 * Y
+	 *
+	 * </pre>
+	 *
+	 * @return Cells of the board.
+	 */
+	public TetrisBoardCell[][] getCells() { return cells; }
+
+}
@@ -0,0 +1,77 @@
+package model;
+
+/**
+ * The immutable rules and geometry of a game : board size, block size on screen
+ * and update interval.
+ *
+ * Each board, model and game screen receives its configuration, so that games
+ * with different rules can run side by side in the same process.
+ */
+public final class TetrisConfiguration {
+	/**
+	 * The classic configuration : a 10x22 board updated every 750 ms.
+	 */
+	public static final TetrisConfiguration DEFAULT = new TetrisConfiguration(10, 22, 35, 750);
+
+	/**
+	 * Maximum width of a board, imposed by the int row masks of TetrisBitBoard.
+	 */
+	public static final int MAX_WIDTH = 31;
+
+	private final int width;
+	private final int height;
+	private final int pieceSize;
+	private final int gameUpdateInterval;
+
+	/**
+	 * @param width Width of the board, in blocks (between 4 and MAX_WIDTH).
+	 * @param height Height of the board, in blocks (at least 4).
+	 * @param pieceSize Size of a single tetrimino block, in pixels.
+	 * @param gameUpdateInterval Amount of time between each game state update, in milliseconds.
+	 */
+	public TetrisConfiguration(final int width, final int height,
+							   final int pieceSize, final int gameUpdateInterval) {
+		if (width < TetriminoShape.SIZE || width > MAX_WIDTH)
+			throw new IllegalArgumentException(String.format(
+				"TetrisConfiguration : width must be between %d and %d.", TetriminoShape.SIZE, MAX_WIDTH));
+		if (height < TetriminoShape.SIZE)
+			throw new IllegalArgumentException(String.format(
+				"TetrisConfiguration : height must be at least %d.", TetriminoShape.SIZE));
+		if (pieceSize <= 0)
+			throw new IllegalArgumentException("TetrisConfiguration : pieceSize must be > 0.");
+		if (gameUpdateInterval <= 0)
+			throw new IllegalArgumentException("TetrisConfiguration : gameUpdateInterval must be > 0.");
+
+		this.width = width;
+		this.height = height;
+		this.pieceSize = pieceSize;
+		this.gameUpdateInterval = gameUpdateInterval;
+	}
+
+	/**
+	 * Width of the board, in blocks.
+	 */
+	public int width() { return width; }
+
+	/**
+	 * Height of the board, in blocks.
+	 */
+	public int height() { return height; }
+
+	/**
+	 * The size of a single tetrimino block, in pixels.
+	 */
+	public int pieceSize() { return pieceSize; }
+
+	/**
+	 * Amount of time between each game state update, in milliseconds.
+	 */
+	public int gameUpdateInterval() { return gameUpdateInterval; }
+
+	@Override
+	public String toString() {
+		return String.format("%dx%d board, %d px blocks, %d ms updates",
+							 width, height, pieceSize, gameUpdateInterval);
+	}
+
+}
@@ -0,0 +1,556 @@
+package model;
+
+/**
+ * The headless simulation core of a Tetris game.
+ *
+ * A TetrisEngine has no side effect : it does not access the file system nor
+ * print anything, and its sequence of tetriminos only depends on its seed. Its
+ * whole state can be inspected through its getters, and the interested objects
+ * can be notified of the game events through a TetrisEngineListener.
+ *
+ * This makes it usable as a library, for instance to play a large number of
+ * games in batch, while TetrisModel adapts it to the interactive game.
+ */
+public class TetrisEngine {
+	private final TetrisRandom random = new TetrisRandom(0);
+	private long seed;
+
+	private final TetrisBoard board;
+	private Tetrimino currentTetrimino;
+	private TetriminoType nextTetriminoType;
+
+	private int score = 0;
+	private int linesCleared = 0;
+	private int ticks = 0;
+	private int tetriminosSpawned = 0;
+	private boolean gameOver = false;
+
+	private TetrisEngineListener listener = null;
+
+	/**
+	 * The cells changed since the last call to collectDirtyCells, as one mask
+	 * per row like the rows of a TetrisBitBoard (null if not tracked).
+	 */
+	private int[] dirtyRows = null;
+	private boolean dirty = false;
+
+	/**
+	 * The last tracked position of the current tetrimino and of its landing
+	 * position (null shape if none).
+	 */
+	private TetriminoShape trackedShape = null;
+	private int trackedX, trackedY, trackedLandingY;
+
+	/**
+	 * Create a new engine playing on a bitboard with the default configuration.
+	 * @param seed Seed of the random tetrimino sequence.
+	 */
+	public TetrisEngine(final long seed) {
+		this(seed, TetrisConfiguration.DEFAULT);
+	}
+
+	/**
+	 * Create a new engine playing on a bitboard.
+	 * @param seed Seed of the random tetrimino sequence.
+	 * @param configuration Rules of the game.
+	 */
+	public TetrisEngine(final long seed, final TetrisConfiguration configuration) {
+		this(seed, new TetrisBitBoard(configuration));
+	}
+
+	/**
+	 * Create a new engine.
+	 * @param seed Seed of the random tetrimino sequence.
+	 * @param board Board to play on.
+	 */
+	public TetrisEngine(final long seed, final TetrisBoard board) {
+		if (board == null)
+			throw new IllegalArgumentException("TetrisEngine : null TetrisBoard.");
+		this.seed = seed;
+		this.board = board;
+	}
+
+	/**
+	 * Set the object to notify of the game events (null to disable the notifications).
+	 */
+	public void setListener(final TetrisEngineListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Enable or disable the tracking of the changed cells, for the views which
+	 * only redraw the cells changed since their last frame.
+	 */
+	public void setDirtyTracking(final boolean enabled) {
+		if (!enabled) {
+			dirtyRows = null;
+			trackedShape = null;
+		} else if (dirtyRows == null) {
+			dirtyRows = new int[board.getHeight()];
+			markAllDirty();
+		}
+	}
+
+	/**
+	 * Get the cells changed since the last call : the cells of the board which
+	 * were locked or moved by a line clear, and the old and new cells of the
+	 * current tetrimino and of its landing position. Dirty tracking must be enabled.
+	 *
+	 * @param masks Receives the changed cells of each row, as a bitmask (bit x for
+	 * column x). Its length must be at least the height of the board.
+	 * @return True if any cell changed.
+	 */
+	public boolean collectDirtyCells(final int[] masks) {
+		if (dirtyRows == null)
+			throw new IllegalStateException("TetrisEngine.collectDirtyCells : dirty tracking disabled.");
+		if (!dirty) return false;
+
+		System.arraycopy(dirtyRows, 0, masks, 0, dirtyRows.length);
+		for (int y = 0; y < dirtyRows.length; y++) {
+			dirtyRows[y] = 0;
+		}
+		dirty = false;
+		return true;
+	}
+
+	/**
+	 * Start a new game with the current seed.
+	 */
+	public void start() {
+		start(seed);
+	}
+
+	/**
+	 * Start a new game.
+	 * @param seed Seed of the random tetrimino sequence.
+	 */
+	public void start(final long seed) {
+		this.seed = seed;
+		random.setSeed(seed);
+
+		// clean up (for game restarts)
+		score = linesCleared = ticks = tetriminosSpawned = 0;
+		gameOver = false;
+		board.clear();
+		currentTetrimino = null;
+		markAllDirty();
+
+		// spawn a new tetrimino for the player to control
+		nextTetriminoType = TetriminoType.getRandomType(random);
+		generateNewTetrimino();
+	}
+
+	/**
+	 * Reseed the random tetrimino sequence of the current game, from the
+	 * tetrimino after the next one. This lets the lookahead searches sample the
+	 * unknown future tetriminos of a game restored from a snapshot.
+	 */
+	public void reseed(final long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * Update the game's state by one tick : the current tetrimino falls by one row.
+	 *
+	 * @return True if game over, false otherwise.
+	 */
+	public boolean tick() {
+		if (gameOver) return true;
+
+		++ticks;
+		moveCurrentTetrimino(0, +1);
+
+		return gameOver;
+	}
+
+	/**
+	 * Perform a player action on the current tetrimino.
+	 * @return True if the tetrimino moved, false otherwise.
+	 */
+	public boolean apply(final TetrisAction action) {
+		switch (action) {
+		case LEFT:
+			return left();
+		case RIGHT:
+			return right();
+		case ROTATE:
+			return rotate();
+		case SOFT_DROP:
+			return softDrop();
+		case HARD_DROP:
+			return hardDrop();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Rotate the current tetrimino clockwise if possible.
+	 * @return True if the tetrimino rotated, false otherwise.
+	 */
+	public boolean rotate() {
+		return rotate(true);
+	}
+
+	/**
+	 * Rotate the current tetrimino if possible, trying the wall kicks of the
+	 * rotation in turn until the rotated tetrimino fits.
+	 * @param clockwise Direction of the rotation.
+	 * @return True if the tetrimino rotated, false otherwise.
+	 */
+	public boolean rotate(final boolean clockwise) {
+		final Tetrimino t = currentTetrimino;
+		if (gameOver || t == null) return false;
+
+		final int rotation = t.getRotation();
+		final TetriminoShape shape = TetriminoShape.get(t.getType(),
+			(rotation + (clockwise ? 1 : TetriminoShape.ROTATIONS - 1)) & (TetriminoShape.ROTATIONS - 1));
+		final int[] kicks = TetriminoKicks.get(t.getType(), clockwise);
+		for (int i = 0; i < kicks.length; i += 2) {
+			if (board.fits(shape, t.getX() + kicks[i], t.getY() + kicks[i + 1])) {
+				t.rotate(clockwise);
+				t.move(kicks[i], kicks[i + 1]);
+				tetriminoMoved();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Move the current tetrimino down by one row, adding it to the board if it landed.
+	 * @return True if the tetrimino moved, false if it landed.
+	 */
+	public boolean softDrop() {
+		return moveCurrentTetrimino(0, +1);
+	}
+
+	/**
+	 * Drop the current tetrimino to its landing position and add it to the board.
+	 * @return True if the tetrimino was dropped, false otherwise.
+	 */
+	public boolean hardDrop() {
+		final Tetrimino t = currentTetrimino;
+		if (gameOver || t == null) return false;
+
+		t.move(0, board.getLandingY(t, t.getX(), t.getY()) - t.getY());
+		lockCurrentTetrimino();
+		return true;
+	}
+
+	/**
+	 * Get the vertical position where the current tetrimino would land if dropped
+	 * (the position of its 'ghost').
+	 */
+	public int getLandingY() {
+		final Tetrimino t = currentTetrimino;
+		return t == null ? 0 : board.getLandingY(t, t.getX(), t.getY());
+	}
+
+	/**
+	 * Move the current tetrimino to the left if possible.
+	 * @return True if the tetrimino moved, false otherwise.
+	 */
+	public boolean left() {
+		return moveCurrentTetrimino(-1, 0);
+	}
+
+	/**
+	 * Move the current tetrimino to the right if possible.
+	 * @return True if the tetrimino moved, false otherwise.
+	 */
+	public boolean right() {
+		return moveCurrentTetrimino(+1, 0);
+	}
+
+	/**
+	 * Try to move the current tetrimino by the given offset vector.
+	 *
+	 * A blocked downwards movement means that the tetrimino landed : it is then
+	 * added to the board, the complete lines are cleared and a new tetrimino is
+	 * spawned.
+	 *
+	 * @param deltaX Offset along the X axis (horizontal).
+	 * @param deltaY Offset along the Y axis (vertical).
+	 *
+	 * @return True if the movement was performed, false otherwise.
+	 */
+	boolean moveCurrentTetrimino(final int deltaX, final int deltaY) {
+		final Tetrimino t = currentTetrimino;
+		if (gameOver || t == null) return false;
+
+		if (board.fits(t, t.getX() + deltaX, t.getY() + deltaY)) {
+			t.move(deltaX, deltaY);
+			tetriminoMoved();
+			return true;
+		}
+
+		if (deltaY > 0) lockCurrentTetrimino();
+		return false;
+	}
+
+	/**
+	 * Add the current tetrimino to the board, clear the complete lines and spawn
+	 * the next tetrimino.
+	 */
+	private void lockCurrentTetrimino() {
+		final Tetrimino t = currentTetrimino;
+		board.addTetrimino(t);
+		if (dirtyRows != null) markDirty(t.getShape(), t.getX(), t.getY());
+		if (listener != null) listener.tetriminoLocked(t);
+
+		// lines clearing & scoring
+		final int linesJustCleared = board.checkForCompleteLines();
+		if (linesJustCleared > 0 && dirtyRows != null) {
+			// the rows above the lowest cleared one moved down
+			markRowsDirty(Math.min(t.getY() + t.getShape().maxY(), board.getHeight() - 1));
+		}
+		if (linesJustCleared > 0) {
+			linesCleared += linesJustCleared;
+			score += computeScore(linesJustCleared);
+			if (listener != null) listener.linesCleared(linesJustCleared, linesCleared);
+		}
+
+		generateNewTetrimino();
+	}
+
+	/**
+	 * Generate the next tetrimino, assign it as the currently controlled one and
+	 * draw the type of the following one.
+	 */
+	void generateNewTetrimino() {
+		final TetriminoType type = nextTetriminoType;
+		nextTetriminoType = TetriminoType.getRandomType(random);
+
+		final TetriminoColor color = TetriminoColor.getColorFromType(type);
+		final Tetrimino t = new Tetrimino(color, type, 0, 0);
+		currentTetrimino = t;
+
+		// try to find a free spot to spawn the tetrimino
+		int spawnPosition = -1;
+		final int width = board.getWidth();
+		for (int attempt = 0; attempt < TetrisRules.spawnAttempts(width); attempt++) {
+			final int x = TetrisRules.spawnColumn(width, attempt);
+			if (canSpawn(t, x)) {
+				spawnPosition = x;
+				break;
+			}
+		}
+
+		// did we succeed ?
+		if (spawnPosition < 0) {
+			tetriminoMoved();
+			gameOver = true;
+			if (listener != null) listener.gameOver(score);
+			return;
+		}
+		t.move(spawnPosition, 0);
+		tetriminoMoved();
+		++tetriminosSpawned;
+		if (listener != null) listener.tetriminoSpawned(t);
+	}
+
+	/**
+	 * Mark the old and new cells of the current tetrimino and of its landing
+	 * position as dirty, if dirty tracking is enabled.
+	 */
+	private void tetriminoMoved() {
+		if (dirtyRows == null) return;
+
+		if (trackedShape != null) {
+			markDirty(trackedShape, trackedX, trackedY);
+			markDirty(trackedShape, trackedX, trackedLandingY);
+		}
+
+		final Tetrimino t = currentTetrimino;
+		trackedShape = t == null ? null : t.getShape();
+		if (t != null) {
+			trackedX = t.getX();
+			trackedY = t.getY();
+			trackedLandingY = board.getLandingY(t, trackedX, trackedY);
+			markDirty(trackedShape, trackedX, trackedY);
+			markDirty(trackedShape, trackedX, trackedLandingY);
+		}
+	}
+
+	private void markDirty(final TetriminoShape shape, final int posX, final int posY) {
+		final int width = board.getWidth(), height = board.getHeight();
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			final int x = posX + shape.blockX(i), y = posY + shape.blockY(i);
+			if (x < 0 || x >= width || y < 0 || y >= height) continue;
+			dirtyRows[y] |= 1 << x;
+		}
+		dirty = true;
+	}
+
+	/**
+	 * Mark the rows from the top of the board to the given one as dirty.
+	 */
+	private void markRowsDirty(final int lastY) {
+		final int fullMask = (1 << board.getWidth()) - 1;
+		for (int y = 0; y <= lastY; y++) {
+			dirtyRows[y] = fullMask;
+		}
+		dirty = true;
+	}
+
+	private void markAllDirty() {
+		if (dirtyRows == null) return;
+		trackedShape = null;
+		markRowsDirty(board.getHeight() - 1);
+	}
+
+	/**
+	 * Check if a tetrimino can spawn in the given column : the skyline answers
+	 * directly in most cases, the complete collision test is only needed when
+	 * the tetrimino would overlap the highest blocks.
+	 */
+	private boolean canSpawn(final Tetrimino t, final int x) {
+		return board.isAboveSkyline(t, x, 0) || board.fits(t, x, 0);
+	}
+
+	/**
+	 * Get the Zobrist hash of the state of the game : the occupied cells of the
+	 * board and the current tetrimino (type, rotation and position).
+	 *
+	 * This is constant time, so that game states can be compared at each tick.
+	 */
+	public long stateHash() {
+		final Tetrimino t = currentTetrimino;
+		long hash = board.getHash();
+		if (t != null) hash ^= Zobrist.pieceKey(t.getType(), t.getRotation(), t.getX(), t.getY());
+		return hash;
+	}
+
+	/**
+	 * Create a new snapshot of the current state of the game.
+	 */
+	public TetrisSnapshot snapshot() {
+		final TetrisSnapshot snapshot = new TetrisSnapshot(board.getConfiguration());
+		saveSnapshot(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Copy the current state of the game into an existing snapshot.
+	 *
+	 * The board of the engine must be a TetrisBitBoard.
+	 *
+	 * @param snapshot Snapshot created for the same board size.
+	 */
+	public void saveSnapshot(final TetrisSnapshot snapshot) {
+		checkSnapshot(snapshot);
+		((TetrisBitBoard) board).save(snapshot);
+
+		final Tetrimino t = currentTetrimino;
+		snapshot.type = t == null ? null : t.getType();
+		if (t != null) {
+			snapshot.color = t.getColor();
+			snapshot.rotation = t.getRotation();
+			snapshot.x = t.getX();
+			snapshot.y = t.getY();
+		}
+		snapshot.nextType = nextTetriminoType;
+
+		snapshot.seed = seed;
+		snapshot.randomState = random.getState();
+		snapshot.score = score;
+		snapshot.linesCleared = linesCleared;
+		snapshot.ticks = ticks;
+		snapshot.tetriminosSpawned = tetriminosSpawned;
+		snapshot.gameOver = gameOver;
+	}
+
+	/**
+	 * Restore the state of the game from a snapshot, which may have been saved by
+	 * another engine with the same board size. The listener is not notified.
+	 *
+	 * The board of the engine must be a TetrisBitBoard.
+	 */
+	public void restoreSnapshot(final TetrisSnapshot snapshot) {
+		checkSnapshot(snapshot);
+		((TetrisBitBoard) board).restore(snapshot);
+
+		if (snapshot.type == null) {
+			currentTetrimino = null;
+		} else if (currentTetrimino == null) {
+			currentTetrimino = new Tetrimino(snapshot.color, snapshot.type, snapshot.x, snapshot.y);
+			currentTetrimino.set(snapshot.color, snapshot.type, snapshot.rotation, snapshot.x, snapshot.y);
+		} else {
+			currentTetrimino.set(snapshot.color, snapshot.type, snapshot.rotation, snapshot.x, snapshot.y);
+		}
+		nextTetriminoType = snapshot.nextType;
+
+		seed = snapshot.seed;
+		random.setState(snapshot.randomState);
+		score = snapshot.score;
+		linesCleared = snapshot.linesCleared;
+		ticks = snapshot.ticks;
+		tetriminosSpawned = snapshot.tetriminosSpawned;
+		gameOver = snapshot.gameOver;
+
+		markAllDirty();
+		tetriminoMoved();
+	}
+
+	private void checkSnapshot(final TetrisSnapshot snapshot) {
+		if (!(board instanceof TetrisBitBoard))
+			throw new IllegalStateException("TetrisEngine : snapshots require a TetrisBitBoard.");
+		if (!snapshot.fits(board))
+			throw new IllegalArgumentException("TetrisEngine : snapshot of a different board size.");
+	}
+
+	/**
+	 * Compute the score gained from clearing lines.
+	 * @param linesCleared Number of lines cleared by the player.
+	 * @return Score gained.
+	 */
+	public static int computeScore(final int linesCleared) {
+		if (linesCleared <= 0) return 0;
+		if (linesCleared == 1) return 100;
+		if (linesCleared == 2) return 300;
+		if (linesCleared == 3) return 700;
+		return 1000 * (linesCleared - 3);
+	}
+
+	/**
+	 * Get the seed of the current game's tetrimino sequence.
+	 */
+	public long getSeed() { return seed; }
+
+	/**
+	 * Get the rules of the game.
+	 */
+	public TetrisConfiguration getConfiguration() { return board.getConfiguration(); }
+
+	/**
+	 * Get the board containing the static blocks of the game.
+	 */
+	public TetrisBoard getBoard() { return board; }
+
+	/**
+	 * Get the tetrimino currently controlled by the player (null before the first game).
+	 */
+	public Tetrimino getCurrentTetrimino() { return currentTetrimino; }
+
+	/**
+	 * Get the type of the tetrimino that will be spawned next.
+	 */
+	public TetriminoType getNextTetriminoType() { return nextTetriminoType; }
+
+	public int getScore() { return score; }
+	public int getLinesCleared() { return linesCleared; }
+
+	/**
+	 * Get the number of ticks elapsed since the start of the game.
+	 */
+	public int getTicks() { return ticks; }
+
+	/**
+	 * Get the number of tetriminos spawned since the start of the game.
+	 */
+	public int getTetriminosSpawned() { return tetriminosSpawned; }
+
+	public boolean isGameOver() { return gameOver; }
+
+}
@@ -0,0 +1,35 @@
+package model;
+
+/**
+ * Implemented by the objects that want to be notified of the events of a
+ * TetrisEngine game.
+ *
+ * The methods are called synchronously from the engine's thread, in the middle
+ * of a game update : they must be fast and must not modify the engine.
+ */
+public interface TetrisEngineListener {
+
+	/**
+	 * Called when a new tetrimino was spawned at the top of the board.
+	 */
+	void tetriminoSpawned(final Tetrimino tetrimino);
+
+	/**
+	 * Called when a tetrimino landed and was added to the board.
+	 */
+	void tetriminoLocked(final Tetrimino tetrimino);
+
+	/**
+	 * Called when complete lines were cleared from the board.
+	 * @param lines Number of lines just cleared.
+	 * @param totalLines Number of lines cleared since the start of the game.
+	 */
+	void linesCleared(final int lines, final int totalLines);
+
+	/**
+	 * Called once when the game is lost.
+	 * @param score Final score of the game.
+	 */
+	void gameOver(final int score);
+
+}
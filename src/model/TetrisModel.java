@@ -1,89 +1,96 @@
 package model;
 
+import log.EventLog;
+import log.EventType;
 import model.TetrisScoreManager.TetrisHighScore;
 
 import java.util.ArrayList;
 import java.util.Random;
 
-public class TetrisModel {
+/**
+ * The model of the interactive game.
+ *
+ * The simulation itself is delegated to a TetrisEngine : this class adds the
+ * persistence of the highscores, the game sessions and the logging of the game events.
+ */
+public class TetrisModel implements TetrisEngineListener {
 	/**
-	 * The size of a single tetrimino block, in pixels.
+	 * Generates the seed of each new game.
 	 */
-	public static int PIECE_SIZE = 35;
+	private Random random = new Random();
+
+	private TetrisScoreManager scoreManager = new TetrisScoreManager();
 
 	/**
-	 * Amount of time between each game state update, in milliseconds.
-	 *
-	 * Must be strictly positive.
+	 * True if the highscores are loaded from and saved to the file system.
 	 */
-	public static int GAME_UPDATE_INTERVAL = 750;
+	private final boolean persistentHighScores;
 
-	private Random random = new Random();
+	private TetrisGameSession gameSession;
 
-	private TetriminoType nextTetriminoType = TetriminoType.getRandomType(random);
+	private final TetrisEngine engine;
 
-	private int score = 0;
-	private int linesCleared = 0;
-	private TetrisScoreManager scoreManager = new TetrisScoreManager();
+	private final EventLog log = EventLog.get();
 
-	private boolean gameOver = false;
-	private TetrisGameSession gameSession;
+	public TetrisModel() {
+		this(TetrisConfiguration.DEFAULT);
+	}
 
-	private Tetrimino currentTetrimino;
-	private final TetrisBoard board = new TetrisBoard();
+	public TetrisModel(final TetrisConfiguration configuration) {
+		this(configuration, System.nanoTime());
+	}
+
+	/**
+	 * @param configuration Rules of the game.
+	 * @param seed Seed of the generator of the games' seeds.
+	 */
+	public TetrisModel(final TetrisConfiguration configuration, final long seed) {
+		this(configuration, seed, true);
+	}
+
+	/**
+	 * @param configuration Rules of the game.
+	 * @param seed Seed of the generator of the games' seeds.
+	 * @param persistentHighScores False to keep the highscores in memory only
+	 * (for the benchmarks), without reading or writing the 'scores.txt' file.
+	 */
+	public TetrisModel(final TetrisConfiguration configuration, final long seed,
+					   final boolean persistentHighScores) {
+		this.persistentHighScores = persistentHighScores;
+		random.setSeed(seed);
+		engine = new TetrisEngine(0, configuration);
+		engine.setDirtyTracking(true); // for the rendering of the changed cells only
 
-	public TetrisModel() {
 		// score manager initialization
-		if (!scoreManager.load()) {
-			System.out.println("Score manager : failed to load the highscores.");
-			System.exit(1);
-		}
+		if (persistentHighScores && !scoreManager.load())
+			throw new IllegalStateException("TetrisModel : failed to load the highscores.");
+
+		engine.setListener(this);
 	}
 
 	/**
 	 * Initialize the game and start its execution.
 	 */
 	public void startGame() {
-		// sanity check
-		if (GAME_UPDATE_INTERVAL <= 0)
-			throw new IllegalStateException("TetrisModel.initGame : GAME_UPDATE_INTERVAL must be > 0.");
-
-		// clean up (for game restarts)
-		score = linesCleared = 0;
-		gameOver = false;
-		board.clear();
-		currentTetrimino = null;
-
-		// spawn a new tetrimino for the player to control
-		generateNewTetrimino();
+		engine.start(random.nextLong());
 
 		// quickstart for test games
 		if (false) {
-			for (int y = TetrisBoard.HEIGHT / 2; y < TetrisBoard.HEIGHT; y++) {
-				for (int x = 0; x + 1 < TetrisBoard.WIDTH && x < y / 3; x++) {
-					board.getCells()[y][x].present = true;
-					board.getCells()[y][x].color = TetriminoColor.getColorFromType(TetriminoType.STICK);
+			final TetrisBoard board = engine.getBoard();
+			for (int y = board.getHeight() / 2; y < board.getHeight(); y++) {
+				for (int x = 0; x + 1 < board.getWidth() && x < y / 3; x++) {
+					board.setBlock(x, y, TetriminoColor.getColorFromType(TetriminoType.STICK));
 				}
 			}
 		}
 	}
 
-	private void gameOver() {
-		if (gameOver) return;
-
-		System.out.format("Game Over ! Score = %d\n", score);
-		final int newHighScoreIndex = scoreManager.scoreQualifies(score);
-
-		gameOver = true;
-		gameSession = new TetrisGameSession(score, newHighScoreIndex, linesCleared);
-	}
-
 	/**
-	 * Submit a new high score and save it.
+	 * Submit a new high score and save it (if the highscores are persistent).
 	 */
 	public void submitScoreAndSave(final String name, final int score) {
 		scoreManager.submit(name, score);
-		scoreManager.save();
+		if (persistentHighScores) scoreManager.save();
 	}
 
 	/**
@@ -92,161 +99,42 @@ public class TetrisModel {
 	 * @return True if game over, false otherwise.
 	 */
 	public boolean updateGame() {
-		if (gameOver) return true;
-
-		// current tetrimino fall
-		moveCurrentTetrimino(0, +1, true);
-		if (gameOver) return true; // game over ?
-
-		// lines clearing & scoring
-		final int linesJustCleared = board.checkForCompleteLines();
-		if (linesJustCleared > 0) {
-			linesCleared += linesJustCleared;
-			score += computeScore(linesJustCleared);
-			System.out.format("=> [%d] lines cleared ! [%d] in total.\n",
-							  linesJustCleared, linesCleared);
-		}
-
-		// debug info
-		//System.out.println(board.toString());
-		//System.out.format("score = %d\n", score);
-		//System.out.println("\n\n\n");
-
-		return false;
+		return engine.tick();
 	}
 
-	/**
-	 * Try to move the current tetrimino by the given offset vector.
-	 *
-	 * @param deltaX Offset along the X axis (horizontal).
-	 * @param deltaY Offset along the Y axis (vertical).
-	 * @param performMove True if the command is a real one, and not just a collision test.
-	 * If false, no movement will be performed.
-	 *
-	 * @return True if the movement is allowed (no collisions), false otherwise.
-	 */
-	private boolean moveCurrentTetrimino(final int deltaX, final int deltaY, boolean performMove) {
-		boolean collision = false;
-		final Tetrimino t = currentTetrimino;
-		if (t == null) return false;
-
-		final int posX = t.getX() + deltaX, posY = t.getY() + deltaY;
-
-		// check movement & collision for each individual block of the current tetrimino
-		for (int i = 0; i < 4 && !collision; i++) {
-			for (int j = 0; j < 4; j++) {
-				if (!t.getBlock(i, j)) continue;
-				final int x = posX + i, y = posY + j;
-
-				// borders movement check
-				if (x < 0 || x >= TetrisBoard.WIDTH || y < 0) return false; // movement forbidden
-
-				// bottom border collision
-				if (y >= TetrisBoard.HEIGHT) {
-					collision = true;
-					break;
-				}
-
-				// board collision check
-				if (board.getCells()[y][x].present) {
-					// collision...
-					if (deltaY > 0) {
-						collision = true;
-						break;
-					}
-					// ... or movement forbidden ?
-					return false;
-				}
-			}
-		}
-
-		// has a collision with another block or the bottom corner happened ?
-		if (collision) {
-			board.addTetrimino(t);
-			generateNewTetrimino();
-			System.out.format("collision (x = %d, y = %d) !\n", t.getX(), t.getY());
-
-			// check for gameover
-			if (t.getY() < 0) {
-				System.out.format("gameover (x = %d, y = %d) !\n", t.getX(), t.getY());
-				gameOver();
-			}
-
-			return false;
-		}
-
-		// at this point we can safely move the tetrimino
-		if (performMove) {
-			t.move(deltaX, deltaY);
-		}
+	@Override
+	public void tetriminoSpawned(final Tetrimino tetrimino) {
+		log.log(EventType.TETRIMINO_SPAWNED, tetrimino.getX(), tetrimino.getType());
+	}
 
-		return true;
+	@Override
+	public void tetriminoLocked(final Tetrimino tetrimino) {
+		log.log(EventType.TETRIMINO_LOCKED, tetrimino.getX(), tetrimino.getY());
 	}
 
-	/**
-	 * Generate a new, random tetrimino and assign it as the currently controlled one.
-	 */
-	private void generateNewTetrimino() {
-		final TetriminoType type = TetriminoType.getRandomType(random);
-		generateNewTetrimino(type);
+	@Override
+	public void linesCleared(final int lines, final int totalLines) {
+		log.log(EventType.LINES_CLEARED, lines, totalLines);
 	}
 
-	/**
-	 * Generate a new, random tetrimino with the given type and assign it as the
-	 * currently controlled one.
-	 *
-	 * @param type Type of the tetrimino.
-	 */
-	private void generateNewTetrimino(final TetriminoType type) {
-		final TetriminoColor color = TetriminoColor.getColorFromType(type);
-		currentTetrimino = new Tetrimino(color, type, 0, 0,
-			Tetrimino.getBlocksFromType(type));
-
-		// try to find a free spot to spawn the tetrimino
-		boolean spawned = false;
-		int spawnPosition = 0;
-		if (moveCurrentTetrimino(TetrisBoard.WIDTH / 2, 0, false)) { // spawn in the middle by default
-			spawned = true;
-			spawnPosition = TetrisBoard.WIDTH / 2;
-		}
-		if (!spawned) {
-			for (int x = 0; x < TetrisBoard.WIDTH; x++) {
-				if (moveCurrentTetrimino(x, 0, false)) {
-					spawned = true;
-					spawnPosition = x;
-					break;
-				}
-			}
-		}
+	@Override
+	public void gameOver(final int score) {
+		log.log(EventType.GAME_OVER, score, 0);
+		final int newHighScoreIndex = scoreManager.scoreQualifies(score);
 
-		// did we succeed ?
-		if (!spawned) {
-			gameOver();
-			return;
-		}
-		currentTetrimino.move(spawnPosition, 0);
-		System.out.format("New tetrimino spawned (type = \"%s\", positionX = %d).\n",
-				          type, spawnPosition);
+		gameSession = new TetrisGameSession(score, newHighScoreIndex, engine.getLinesCleared());
 	}
 
 	/**
-	 * Compute the score gained from clearing lines.
-	 * @param linesCleared Number of lines cleared by the player.
-	 * @return Score gained.
+	 * Get the rules of the game.
 	 */
-	private int computeScore(final int linesCleared) {
-		if (linesCleared <= 0) return 0;
-		if (linesCleared == 1) return 100;
-		if (linesCleared == 2) return 300;
-		if (linesCleared == 3) return 700;
-		return 1000 * (linesCleared - 3);
-	}
+	public TetrisConfiguration getConfiguration() { return engine.getConfiguration(); }
 
 	/**
 	 * Get the player's current score.
 	 * @return Current score.
 	 */
-	public int getScore() { return score; }
+	public int getScore() { return engine.getScore(); }
 
 	/**
 	 * Get the current highscores (loaded from and saved to the file system).
@@ -262,57 +150,67 @@ public class TetrisModel {
 	 * Rotate the player's tetrimino.
 	 */
 	public void rotate() {
-		// TODO : add collision check (with border and blocks)
-		currentTetrimino.rotate(true);
+		engine.rotate();
 	}
 
 	/**
 	 * Accelerate the fall of the player's tetrimino.
 	 */
 	public void speedUpFall() {
-		moveCurrentTetrimino(0, +1, true);
+		engine.softDrop();
+	}
+
+	/**
+	 * Drop the player's tetrimino to its landing position.
+	 */
+	public void hardDrop() {
+		engine.hardDrop();
 	}
 
 	/**
 	 * Move the player's tetrimino to the left if possible.
 	 */
 	public void left() {
-		moveCurrentTetrimino(-1, 0, true);
+		engine.left();
 	}
 
 	/**
 	 * Move the player's tetrimino to the right if possible.
 	 */
 	public void right() {
-		moveCurrentTetrimino(+1, 0, true);
+		engine.right();
 	}
 
 	/**
 	 * Get the tetrimino currently controlled by the player.
 	 * @return The controlled Tetrimino.
 	 */
-	public Tetrimino getControlledTetrimino() { return currentTetrimino; }
+	public Tetrimino getControlledTetrimino() { return engine.getCurrentTetrimino(); }
 
 	/**
-	 * <pre>
-	 * Get the two-dimensional array describing the board's cells.
-	 * NB : the array's first dimension is the Y axis (vertical), and its second
-	 * one is the X axis (horizontal).
-	 * The coordinate system works as follows :
-	 *
-	 * +---------> X
-	 * |
-	 * |
-	 * |
-	 * |
-	 * v
-	 *
-	 * Y
-	 *
-	 * </pre>
-	 *
-	 * @return Cells of the board.
+	 * Get the type of the tetrimino that will be spawned next.
+	 */
+	public TetriminoType getNextTetriminoType() { return engine.getNextTetriminoType(); }
+
+	/**
+	 * Get the vertical position where the player's tetrimino would land if dropped.
+	 */
+	public int getLandingY() { return engine.getLandingY(); }
+
+	/**
+	 * Get the cells changed since the last call (see TetrisEngine.collectDirtyCells).
+	 */
+	public boolean collectDirtyCells(final int[] masks) { return engine.collectDirtyCells(masks); }
+
+	/**
+	 * Get the board containing the static blocks of the game.
+	 * @return The game board.
+	 */
+	public TetrisBoard getBoard() { return engine.getBoard(); }
+
+	/**
+	 * Get the simulation core of the game.
 	 */
-	public TetrisBoardCell[][] getBoardCells() { return board.getCells(); }
+	public TetrisEngine getEngine() { return engine; }
 
 }
@@ -0,0 +1,43 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Random generator of the games, whose state can be saved and restored.
+ *
+ * It produces exactly the same sequence as java.util.Random with the same seed
+ * (same linear congruential generator), but its state is a plain field instead
+ * of an AtomicLong : it is cheaper to use from a single thread, and it can be
+ * copied into a TetrisSnapshot.
+ */
+public class TetrisRandom extends Random {
+	private static final long serialVersionUID = 1L;
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	/**
+	 * NB : no initializer, since it is set by the superclass constructor.
+	 */
+	private long state;
+
+	public TetrisRandom(final long seed) {
+		super(seed);
+	}
+
+	@Override
+	public void setSeed(final long seed) {
+		state = (seed ^ MULTIPLIER) & MASK;
+	}
+
+	@Override
+	protected int next(final int bits) {
+		state = (state * MULTIPLIER + ADDEND) & MASK;
+		return (int) (state >>> (48 - bits));
+	}
+
+	long getState() { return state; }
+	void setState(final long state) { this.state = state; }
+
+}
@@ -0,0 +1,102 @@
+package model;
+
+/**
+ * The rules of the game over boards stored as row masks (bit x of a row is set
+ * if its cell x is occupied, like the rows of a TetrisBitBoard).
+ *
+ * They are shared by TetrisEngine (through TetrisBitBoard), the AI searches and
+ * the VectorEnvironment, which stores many boards in a single array : the rows
+ * of a board start at the given offset of the array.
+ */
+public final class TetrisRules {
+
+	private TetrisRules() { }
+
+	/**
+	 * Check if a shape fits at the given position : inside the board and without
+	 * overlapping any block.
+	 *
+	 * @param rows Row masks of the boards.
+	 * @param offset Index of the top row of the board.
+	 * @param width Width of the board.
+	 * @param height Height of the board.
+	 */
+	public static boolean fits(final int[] rows, final int offset, final int width, final int height,
+							   final TetriminoShape shape, final int posX, final int posY) {
+		// borders
+		if (posX + shape.minX() < 0 || posX + shape.maxX() >= width
+			|| posY + shape.minY() < 0 || posY + shape.maxY() >= height)
+			return false;
+
+		// other blocks
+		final int base = offset + posY;
+		for (int j = shape.minY(); j <= shape.maxY(); j++) {
+			if ((rows[base + j] & shiftedRowMask(shape, j, posX)) != 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get a row mask of a shape moved to the given horizontal position.
+	 */
+	public static int shiftedRowMask(final TetriminoShape shape, final int y, final int posX) {
+		final int mask = shape.rowMask(y);
+		return posX >= 0 ? mask << posX : mask >>> -posX;
+	}
+
+	/**
+	 * Get the index of the first wall kick of a rotation which makes the rotated
+	 * shape fit (see TetriminoKicks).
+	 *
+	 * @param kicks The offsets of the rotation, as (x, y) pairs.
+	 * @param rotated The shape after the rotation.
+	 * @return The index of the x offset of the kick, or -1 if the rotation is impossible.
+	 */
+	public static int findKick(final int[] rows, final int offset, final int width, final int height,
+							   final int[] kicks, final TetriminoShape rotated, final int posX, final int posY) {
+		for (int i = 0; i < kicks.length; i += 2) {
+			if (fits(rows, offset, width, height, rotated, posX + kicks[i], posY + kicks[i + 1])) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Number of columns tried in turn to spawn a tetrimino (see spawnColumn).
+	 */
+	public static int spawnAttempts(final int width) { return width + 1; }
+
+	/**
+	 * Get the column of an attempt to spawn a tetrimino, at the top of the board :
+	 * first the middle of the board, then each column from the left.
+	 * @param attempt Index of the attempt, from 0 to spawnAttempts(width) - 1.
+	 */
+	public static int spawnColumn(final int width, final int attempt) {
+		return attempt == 0 ? width / 2 : attempt - 1;
+	}
+
+	/**
+	 * Remove the complete rows of a board, moving the rows above them down.
+	 * TetrisBoard.checkForCompleteLines performs the same compaction while
+	 * maintaining the indexes of the board.
+	 *
+	 * @param fullMask Mask of a complete row.
+	 * @return The number of rows removed.
+	 */
+	public static int clearLines(final int[] rows, final int offset, final int height, final int fullMask) {
+		// compact the rows from the bottom, skipping the complete ones
+		int lines = 0;
+		for (int from = offset + height - 1, to = from; from >= offset; from--) {
+			final int row = rows[from];
+			if (row == fullMask) {
+				++lines;
+				continue;
+			}
+			rows[to--] = row;
+		}
+		for (int y = offset; y < offset + lines; y++) {
+			rows[y] = 0;
+		}
+		return lines;
+	}
+
+}
@@ -1,5 +1,7 @@
 package model;
 
+import log.EventLog;
+import log.EventType;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -36,6 +38,8 @@ public class TetrisScoreManager {
 	 */
 	private final ArrayList<TetrisHighScore> highscores = new ArrayList<>(MAX_HIGHSCORES);
 
+	private final EventLog log = EventLog.get();
+
 	public TetrisScoreManager() {
 		for (int i = 0; i < MAX_HIGHSCORES; i++) {
 			highscores.add(new TetrisHighScore("", -1));
@@ -78,9 +82,7 @@ public class TetrisScoreManager {
 				final TetrisHighScore highscore = new TetrisHighScore(name, score);
 				highscores.add(i, highscore);
 				highscores.remove(highscores.size() - 1);
-				System.out.format(
-					"Score manager : added new high score (name = \"%s\", score = %d) at index %d\n",
-					highscore.name, highscore.score, i);
+				log.log(EventType.HIGH_SCORE_ADDED, highscore.score, i, 0, highscore.name);
 				return i;
 			}
 		}
@@ -101,7 +103,7 @@ public class TetrisScoreManager {
 			while ((line = bufferedReader.readLine()) != null && i < MAX_HIGHSCORES) {
 				 final String[] strings = line.split(SCORE_DELIMITER, 2);
 				 if (strings.length < 2) {
-					 System.out.format("Score manager : invalid highscore \"%s\".\n", line);
+					 log.log(EventType.INVALID_HIGH_SCORE, line);
 					 continue;
 				 }
 
@@ -123,8 +125,7 @@ public class TetrisScoreManager {
 			return false;
 		}
 
-		System.out.format("Score manager : loaded high scores from file \"%s\"\n",
-						  SCORES_FILEPATH);
+		log.log(EventType.HIGH_SCORES_LOADED, SCORES_FILEPATH);
 
 		return true;
 	}
@@ -156,8 +157,7 @@ public class TetrisScoreManager {
 			return false;
 		}
 
-		System.out.format("Score manager : saved high scores to file \"%s\"\n",
-						  SCORES_FILEPATH);
+		log.log(EventType.HIGH_SCORES_SAVED, SCORES_FILEPATH);
 
 		return true;
 	}
@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * A copy of the complete state of a TetrisEngine game : board, current
+ * tetrimino, score, counters and random generator.
+ *
+ * A snapshot only holds primitive arrays and values (the board as its row masks
+ * and palette indices), so saving and restoring one are a few array copies. An
+ * instance can be reused for any number of saves, to avoid allocations in
+ * search loops.
+ */
+public final class TetrisSnapshot {
+	final int width, height;
+
+	// board
+	final int[] rows;
+	final byte[] colors;
+	long boardHash;
+	final int[] columnHeights, columnHoles;
+	int aggregateHeight, holes;
+
+	// current tetrimino (type is null before the first game)
+	TetriminoType type;
+	TetriminoColor color;
+	int rotation, x, y;
+	TetriminoType nextType;
+
+	// game
+	long seed;
+	long randomState;
+	int score, linesCleared, ticks, tetriminosSpawned;
+	boolean gameOver;
+
+	/**
+	 * Create an empty snapshot, for the games with the given configuration.
+	 */
+	public TetrisSnapshot(final TetrisConfiguration configuration) {
+		width = configuration.width();
+		height = configuration.height();
+		rows = new int[height];
+		colors = new byte[width * height];
+		columnHeights = new int[width];
+		columnHoles = new int[width];
+	}
+
+	/**
+	 * Check if the snapshot can hold the state of a board.
+	 */
+	boolean fits(final TetrisBoard board) {
+		return board.getWidth() == width && board.getHeight() == height;
+	}
+
+	public int score() { return score; }
+	public int linesCleared() { return linesCleared; }
+	public int ticks() { return ticks; }
+	public boolean gameOver() { return gameOver; }
+
+	/**
+	 * Get the occupancy bitmask of a row of the saved board.
+	 */
+	public int row(final int y) { return rows[y]; }
+
+}
@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * The keys of the Zobrist hashes of the game states.
+ *
+ * The hash of a board is the XOR of the keys of its occupied cells, so that it
+ * can be updated incrementally each time a cell is filled or emptied. The keys
+ * are computed on the fly by a 64-bit mixing function instead of being stored
+ * in tables, so they don't depend on the size of the board.
+ */
+public final class Zobrist {
+	private static final long CELL_SALT = 0x2545F4914F6CDD1DL;
+	private static final long PIECE_SALT = 0x61C8864680B583EBL;
+
+	private Zobrist() { }
+
+	/**
+	 * Get the key of an occupied cell.
+	 */
+	public static long cellKey(final int x, final int y) {
+		return mix64(((long) y << 8 | x) * 0x9E3779B97F4A7C15L + CELL_SALT);
+	}
+
+	/**
+	 * Get the XOR of the keys of the occupied cells of a row.
+	 * @param row Occupancy bitmask of the row.
+	 * @param y Vertical position of the row.
+	 */
+	public static long rowKey(int row, final int y) {
+		long key = 0;
+		while (row != 0) {
+			key ^= cellKey(Integer.numberOfTrailingZeros(row), y);
+			row &= row - 1;
+		}
+		return key;
+	}
+
+	/**
+	 * Get the key of a tetrimino type.
+	 */
+	public static long typeKey(final TetriminoType type) {
+		return mix64((type.ordinal() + 1) * 0x9E3779B97F4A7C15L + PIECE_SALT);
+	}
+
+	/**
+	 * Get the key of a tetrimino in a given position and rotation state.
+	 */
+	public static long pieceKey(final TetriminoType type, final int rotation, final int x, final int y) {
+		final long state = ((long) type.ordinal() << 48) | ((long) (rotation & 3) << 40)
+			| ((long) (x & 0xFFFF) << 16) | (y & 0xFFFF);
+		return mix64(state * 0x9E3779B97F4A7C15L + PIECE_SALT);
+	}
+
+	/**
+	 * SplitMix64 finalizer.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,62 @@
+package replay;
+
+import model.TetrisAction;
+import model.TetrisEngine;
+
+import java.util.Arrays;
+
+/**
+ * Records the actions performed on a TetrisEngine game, to replay it later.
+ */
+public class InputRecorder {
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final TetrisEngine engine;
+	private final long seed;
+
+	private byte[] records = new byte[INITIAL_CAPACITY];
+	private int length = 0;
+	private int actionCount = 0;
+	private int lastTick = 0;
+
+	/**
+	 * Start recording the current game of an engine.
+	 * Must be called right after the game was started.
+	 */
+	public InputRecorder(final TetrisEngine engine) {
+		if (engine.getTicks() != 0)
+			throw new IllegalStateException("InputRecorder : the game has already started.");
+		this.engine = engine;
+		this.seed = engine.getSeed();
+	}
+
+	/**
+	 * Record an action performed at the current tick of the game.
+	 */
+	public void record(final TetrisAction action) {
+		final int tick = engine.getTicks();
+		long value = ((long) (tick - lastTick) << InputRecording.ACTION_BITS) | action.ordinal();
+		lastTick = tick;
+
+		if (length + 10 > records.length) {
+			records = Arrays.copyOf(records, records.length * 2);
+		}
+		while ((value & ~0x7FL) != 0) {
+			records[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		records[length++] = (byte) value;
+		++actionCount;
+	}
+
+	/**
+	 * Get the recording of the game so far.
+	 */
+	public InputRecording finish() {
+		return new InputRecording(seed, engine.getBoard().getWidth(), engine.getBoard().getHeight(),
+								  Arrays.copyOf(records, length), length, actionCount,
+								  engine.getTicks(), engine.getScore(), engine.getLinesCleared(),
+								  engine.stateHash());
+	}
+
+}
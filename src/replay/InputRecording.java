@@ -0,0 +1,206 @@
+package replay;
+
+import model.TetrisAction;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <pre>
+ * A recorded game session : the seed of the game, the outcome of the game and the
+ * compact stream of the player's actions.
+ *
+ * Each action is stored as a single varint : (tick delta << ACTION_BITS) | action,
+ * where the tick delta is the number of ticks elapsed since the previous action.
+ * An action performed between ticks N and N + 1 is stored with the tick N.
+ *
+ * Since version 2, the Zobrist hash of the final state of the game is stored
+ * as well, so that a replay can be checked against the whole recorded state.
+ * Version 3 recordings use the rotations with collision check and wall kicks :
+ * the older ones can't be replayed.
+ * </pre>
+ */
+public final class InputRecording {
+	/**
+	 * Number of low bits of a record holding the action's ordinal.
+	 */
+	static final int ACTION_BITS = 3;
+	static final int ACTION_MASK = (1 << ACTION_BITS) - 1;
+
+	private static final int MAGIC = 0x54525059; // "TRPY"
+	private static final int VERSION = 3;
+
+	/**
+	 * Oldest version that can be replayed with the current rules.
+	 */
+	private static final int OLDEST_VERSION = 3;
+
+	private final long seed;
+	private final int width, height;
+	private final byte[] records;
+	private final int recordsLength;
+	private final int actionCount;
+
+	private final int endTick;
+	private final int score;
+	private final int linesCleared;
+	private final long stateHash;
+
+	/**
+	 * @param seed Seed of the game.
+	 * @param width Width of the board.
+	 * @param height Height of the board.
+	 * @param records Encoded actions (not copied).
+	 * @param recordsLength Number of bytes used in the records array.
+	 * @param actionCount Number of recorded actions.
+	 * @param endTick Tick count at the end of the recording.
+	 * @param score Score at the end of the recording.
+	 * @param linesCleared Number of lines cleared at the end of the recording.
+	 * @param stateHash State hash of the game at the end of the recording.
+	 */
+	InputRecording(final long seed, final int width, final int height,
+				   final byte[] records, final int recordsLength, final int actionCount,
+				   final int endTick, final int score, final int linesCleared,
+				   final long stateHash) {
+		this.seed = seed;
+		this.width = width;
+		this.height = height;
+		this.records = records;
+		this.recordsLength = recordsLength;
+		this.actionCount = actionCount;
+		this.endTick = endTick;
+		this.score = score;
+		this.linesCleared = linesCleared;
+		this.stateHash = stateHash;
+	}
+
+	public long seed() { return seed; }
+	public int width() { return width; }
+	public int height() { return height; }
+	public int actionCount() { return actionCount; }
+	public int endTick() { return endTick; }
+	public int score() { return score; }
+	public int linesCleared() { return linesCleared; }
+
+	/**
+	 * State hash (TetrisEngine.stateHash) of the game at the end of the recording.
+	 */
+	public long stateHash() { return stateHash; }
+
+	/**
+	 * Size of the encoded actions, in bytes.
+	 */
+	public int recordsLength() { return recordsLength; }
+
+	/**
+	 * Get a cursor over the recorded actions.
+	 */
+	public Cursor cursor() { return new Cursor(); }
+
+	/**
+	 * Iterates over the recorded actions, decoding them on the fly.
+	 */
+	public final class Cursor {
+		private int position = 0;
+		private int tick = 0;
+		private TetrisAction action = null;
+
+		/**
+		 * Decode the next action.
+		 * @return False if there is no more action.
+		 */
+		public boolean next() {
+			if (position >= recordsLength) return false;
+
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = records[position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+
+			tick += (int) (value >>> ACTION_BITS);
+			action = TetrisAction.fromOrdinal((int) (value & ACTION_MASK));
+			return true;
+		}
+
+		/**
+		 * Tick of the current action.
+		 */
+		public int tick() { return tick; }
+
+		/**
+		 * The current action.
+		 */
+		public TetrisAction action() { return action; }
+	}
+
+	/**
+	 * Write the recording to a stream.
+	 */
+	public void write(final OutputStream stream) throws IOException {
+		final DataOutputStream output = new DataOutputStream(stream);
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeLong(seed);
+		output.writeInt(width);
+		output.writeInt(height);
+		output.writeInt(endTick);
+		output.writeInt(score);
+		output.writeInt(linesCleared);
+		output.writeLong(stateHash);
+		output.writeInt(actionCount);
+		output.writeInt(recordsLength);
+		output.write(records, 0, recordsLength);
+		output.flush();
+	}
+
+	/**
+	 * Read a recording from a stream.
+	 * @throws IOException If the stream could not be read or is not a valid recording.
+	 */
+	public static InputRecording read(final InputStream stream) throws IOException {
+		final DataInputStream input = new DataInputStream(stream);
+		if (input.readInt() != MAGIC)
+			throw new IOException("InputRecording.read : not an input recording.");
+		final int version = input.readInt();
+		if (version < OLDEST_VERSION || version > VERSION)
+			throw new IOException(String.format("InputRecording.read : unsupported version %d.", version));
+
+		final long seed = input.readLong();
+		final int width = input.readInt();
+		final int height = input.readInt();
+		final int endTick = input.readInt();
+		final int score = input.readInt();
+		final int linesCleared = input.readInt();
+		final long stateHash = input.readLong();
+		final int actionCount = input.readInt();
+		final int recordsLength = input.readInt();
+		if (actionCount < 0 || recordsLength < 0)
+			throw new IOException("InputRecording.read : corrupted recording.");
+
+		final byte[] records = new byte[recordsLength];
+		input.readFully(records);
+
+		return new InputRecording(seed, width, height, records, recordsLength, actionCount,
+								  endTick, score, linesCleared, stateHash);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("seed = %d, %dx%d board, %d actions (%d bytes), %d ticks, score = %d, lines = %d",
+							 seed, width, height, actionCount, recordsLength, endTick, score, linesCleared);
+	}
+
+	/**
+	 * Get a copy of the encoded actions.
+	 */
+	public byte[] records() { return Arrays.copyOf(records, recordsLength); }
+
+}
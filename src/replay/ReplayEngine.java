@@ -0,0 +1,112 @@
+package replay;
+
+import model.TetrisConfiguration;
+import model.TetrisEngine;
+import simulation.GameResult;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replays recorded game sessions headlessly, as fast as possible.
+ */
+public class ReplayEngine {
+
+	/**
+	 * Replay a recorded game on a new engine.
+	 */
+	public static TetrisEngine replay(final InputRecording recording) {
+		final TetrisConfiguration configuration = new TetrisConfiguration(
+			recording.width(), recording.height(),
+			TetrisConfiguration.DEFAULT.pieceSize(), TetrisConfiguration.DEFAULT.gameUpdateInterval());
+		final TetrisEngine engine = new TetrisEngine(recording.seed(), configuration);
+		replay(recording, engine);
+		return engine;
+	}
+
+	/**
+	 * Replay a recorded game.
+	 * @param recording The recorded game.
+	 * @param engine Engine to replay the game on, with the recording's board size.
+	 * Its previous state is discarded.
+	 */
+	public static void replay(final InputRecording recording, final TetrisEngine engine) {
+		if (engine.getBoard().getWidth() != recording.width()
+			|| engine.getBoard().getHeight() != recording.height())
+			throw new IllegalArgumentException("ReplayEngine.replay : wrong board size.");
+
+		engine.start(recording.seed());
+
+		final InputRecording.Cursor cursor = recording.cursor();
+		while (cursor.next()) {
+			advance(engine, cursor.tick());
+			engine.apply(cursor.action());
+		}
+		advance(engine, recording.endTick());
+	}
+
+	/**
+	 * Update the game until the given tick, or until it is lost.
+	 */
+	private static void advance(final TetrisEngine engine, final int tick) {
+		while (engine.getTicks() < tick) {
+			if (engine.tick()) return;
+		}
+	}
+
+	/**
+	 * Check if a replayed game ended in the recorded state : same counters and
+	 * same state hash (board and current tetrimino).
+	 */
+	public static boolean matches(final InputRecording recording, final TetrisEngine engine) {
+		return engine.getTicks() == recording.endTick()
+			&& engine.getScore() == recording.score()
+			&& engine.getLinesCleared() == recording.linesCleared()
+			&& engine.stateHash() == recording.stateHash();
+	}
+
+	/**
+	 * Get the outcome of a replayed game.
+	 */
+	public static GameResult result(final TetrisEngine engine) {
+		return new GameResult(engine.getSeed(), engine.getScore(), engine.getLinesCleared(),
+							  engine.getTicks(), engine.getTetriminosSpawned(), engine.isGameOver());
+	}
+
+	/**
+	 * <pre>
+	 * Command line entry point of the replay mode.
+	 *
+	 * Arguments : file [repetitions]
+	 * </pre>
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1)
+			throw new IllegalArgumentException("ReplayEngine : missing recording file.");
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+		final InputRecording recording;
+		try (InputStream input = new FileInputStream(args[0])) {
+			recording = InputRecording.read(input);
+		}
+		System.out.format("Recording : %s\n", recording);
+
+		TetrisEngine engine = replay(recording);
+		final long start = System.nanoTime();
+		for (int i = 1; i < repetitions; i++) {
+			replay(recording, engine);
+		}
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		final GameResult result = result(engine);
+		System.out.format("Replay : %d ticks, score = %d, lines = %d, game over = %b -> %s\n",
+						  result.ticks(), result.score(), result.linesCleared(), result.gameOver(),
+						  matches(recording, engine) ? "MATCH" : "MISMATCH");
+		if (repetitions > 1) {
+			System.out.format("%d replays in %.3f s (%.0f ticks/s).\n", repetitions - 1, seconds,
+							  (repetitions - 1) * (double) result.ticks() / seconds);
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+package simulation;
+
+import model.TetrisAction;
+import model.TetrisConfiguration;
+import model.TetrisEngine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a large number of seeded games in parallel on a fork/join pool and
+ * aggregates their results.
+ *
+ * Each game is played on its own TetrisEngine and driven by its own InputPolicy,
+ * and each worker fills its own BatchStatistics before they are merged : the
+ * games share no mutable state, so the throughput scales with the number of cores.
+ */
+public class BatchSimulator {
+	/**
+	 * Default maximum number of ticks of a game, to stop the games a policy never loses.
+	 */
+	public static final int DEFAULT_MAX_TICKS = 100_000;
+
+	/**
+	 * Default maximum number of actions performed between two ticks.
+	 */
+	public static final int DEFAULT_MAX_ACTIONS_PER_TICK = 16;
+
+	private final InputPolicyFactory policyFactory;
+	private final ForkJoinPool pool;
+
+	private TetrisConfiguration configuration = TetrisConfiguration.DEFAULT;
+	private int maxTicks = DEFAULT_MAX_TICKS;
+	private int maxActionsPerTick = DEFAULT_MAX_ACTIONS_PER_TICK;
+	private int scoreBucketWidth = 100;
+	private int scoreBuckets = 100;
+
+	/**
+	 * Create a simulator running on the common fork/join pool.
+	 */
+	public BatchSimulator(final InputPolicyFactory policyFactory) {
+		this(policyFactory, ForkJoinPool.commonPool());
+	}
+
+	public BatchSimulator(final InputPolicyFactory policyFactory, final ForkJoinPool pool) {
+		if (policyFactory == null)
+			throw new IllegalArgumentException("BatchSimulator : null InputPolicyFactory.");
+		if (pool == null)
+			throw new IllegalArgumentException("BatchSimulator : null ForkJoinPool.");
+		this.policyFactory = policyFactory;
+		this.pool = pool;
+	}
+
+	/**
+	 * Set the rules of the simulated games.
+	 */
+	public BatchSimulator setConfiguration(final TetrisConfiguration configuration) {
+		if (configuration == null)
+			throw new IllegalArgumentException("BatchSimulator : null TetrisConfiguration.");
+		this.configuration = configuration;
+		return this;
+	}
+
+	public BatchSimulator setMaxTicks(final int maxTicks) {
+		if (maxTicks <= 0)
+			throw new IllegalArgumentException("BatchSimulator : maxTicks must be > 0.");
+		this.maxTicks = maxTicks;
+		return this;
+	}
+
+	public BatchSimulator setMaxActionsPerTick(final int maxActionsPerTick) {
+		if (maxActionsPerTick < 0)
+			throw new IllegalArgumentException("BatchSimulator : maxActionsPerTick must be >= 0.");
+		this.maxActionsPerTick = maxActionsPerTick;
+		return this;
+	}
+
+	/**
+	 * Set the buckets of the score distribution of the statistics.
+	 */
+	public BatchSimulator setScoreBuckets(final int scoreBucketWidth, final int scoreBuckets) {
+		if (scoreBucketWidth <= 0 || scoreBuckets <= 0)
+			throw new IllegalArgumentException("BatchSimulator : the score buckets must be > 0.");
+		this.scoreBucketWidth = scoreBucketWidth;
+		this.scoreBuckets = scoreBuckets;
+		return this;
+	}
+
+	/**
+	 * Play a batch of games.
+	 *
+	 * The seed of each game only depends on the base seed and on the index of the
+	 * game, so a batch can be replayed identically.
+	 *
+	 * @param games Number of games to play.
+	 * @param baseSeed Seed of the batch.
+	 * @return Aggregate statistics of the games.
+	 */
+	public BatchStatistics run(final int games, final long baseSeed) {
+		if (games < 0)
+			throw new IllegalArgumentException("BatchSimulator.run : negative number of games.");
+
+		// a few tasks per worker, so that long games don't leave the other workers idle
+		final int threshold = Math.max(1, games / (pool.getParallelism() * 8));
+		return pool.invoke(new BatchTask(0, games, baseSeed, threshold));
+	}
+
+	/**
+	 * Play a single game.
+	 * @param engine Engine to play the game on (its previous state is discarded).
+	 * @param seed Seed of the game.
+	 */
+	public GameResult play(final TetrisEngine engine, final long seed) {
+		final InputPolicy policy = policyFactory.create(seed);
+
+		engine.start(seed);
+		policy.reset(engine);
+
+		while (!engine.isGameOver() && engine.getTicks() < maxTicks) {
+			for (int i = 0; i < maxActionsPerTick && !engine.isGameOver(); i++) {
+				final TetrisAction action = policy.nextAction(engine);
+				if (action == TetrisAction.NONE) break;
+				engine.apply(action);
+			}
+			engine.tick();
+		}
+
+		return new GameResult(seed, engine.getScore(), engine.getLinesCleared(),
+							  engine.getTicks(), engine.getTetriminosSpawned(), engine.isGameOver());
+	}
+
+	/**
+	 * Get the seed of a game of a batch.
+	 *
+	 * The index is scrambled (SplitMix64 finalizer) so that the games of a batch
+	 * don't use correlated consecutive seeds.
+	 */
+	public static long gameSeed(final long baseSeed, final int index) {
+		long z = baseSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Plays the games of indices [from, to) of a batch, splitting the range
+	 * between several workers when it is too large.
+	 */
+	private class BatchTask extends RecursiveTask<BatchStatistics> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to;
+		private final long baseSeed;
+		private final int threshold;
+
+		BatchTask(final int from, final int to, final long baseSeed, final int threshold) {
+			this.from = from;
+			this.to = to;
+			this.baseSeed = baseSeed;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected BatchStatistics compute() {
+			if (to - from > threshold) {
+				final int middle = (from + to) >>> 1;
+				final BatchTask left = new BatchTask(from, middle, baseSeed, threshold);
+				left.fork();
+				final BatchStatistics right = new BatchTask(middle, to, baseSeed, threshold).compute();
+				return left.join().merge(right);
+			}
+
+			final BatchStatistics statistics = new BatchStatistics(scoreBucketWidth, scoreBuckets);
+			final TetrisEngine engine = new TetrisEngine(0, configuration);
+			for (int i = from; i < to; i++) {
+				statistics.add(play(engine, gameSeed(baseSeed, i)));
+			}
+			return statistics;
+		}
+	}
+
+	/**
+	 * <pre>
+	 * Command line entry point of the batch mode, with random inputs.
+	 *
+	 * Arguments : [games] [seed] [parallelism]
+	 * </pre>
+	 */
+	public static void main(final String[] args) {
+		runCommandLine(args, new InputPolicyFactory() {
+			@Override
+			public InputPolicy create(final long seed) {
+				return new RandomInputPolicy(seed);
+			}
+		});
+	}
+
+	/**
+	 * Play the batch of the command line arguments with the given policies and
+	 * print its statistics.
+	 *
+	 * @param args [games] [seed] [parallelism]
+	 * @param policyFactory Creates the policy of each game.
+	 */
+	public static BatchStatistics runCommandLine(final String[] args, final InputPolicyFactory policyFactory) {
+		final int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		final long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		final ForkJoinPool pool = args.length > 2
+			? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+
+		final BatchSimulator simulator = new BatchSimulator(policyFactory, pool);
+
+		final long start = System.nanoTime();
+		final BatchStatistics statistics = simulator.run(games, seed);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.format("Batch of %d games (seed = %d, parallelism = %d) played in %.2f s (%.0f games/s, %.0f ticks/s).\n",
+						  games, seed, pool.getParallelism(), seconds,
+						  games / seconds, statistics.totalTicks() / seconds);
+		System.out.print(statistics);
+		return statistics;
+	}
+
+}
@@ -0,0 +1,177 @@
+package simulation;
+
+/**
+ * Aggregate statistics of a batch of simulated games.
+ *
+ * Instances are not thread-safe : each worker fills its own instance, and the
+ * partial statistics are then combined with merge.
+ */
+public class BatchStatistics {
+	private final int scoreBucketWidth;
+
+	/**
+	 * Distribution of the scores. Bucket i counts the scores in
+	 * [i * scoreBucketWidth, (i + 1) * scoreBucketWidth), and the last bucket
+	 * also counts all the higher scores.
+	 */
+	private final long[] scoreHistogram;
+
+	private long games = 0;
+	private long unfinishedGames = 0;
+
+	private long scoreSum = 0;
+	private double scoreSquaresSum = 0;
+	private int minScore = Integer.MAX_VALUE, maxScore = Integer.MIN_VALUE;
+
+	private long linesSum = 0;
+	private int minLines = Integer.MAX_VALUE, maxLines = Integer.MIN_VALUE;
+
+	private long ticksSum = 0;
+	private int minTicks = Integer.MAX_VALUE, maxTicks = Integer.MIN_VALUE;
+
+	private long tetriminosSum = 0;
+
+	/**
+	 * @param scoreBucketWidth Width of the buckets of the score distribution.
+	 * @param scoreBuckets Number of buckets of the score distribution.
+	 */
+	public BatchStatistics(final int scoreBucketWidth, final int scoreBuckets) {
+		if (scoreBucketWidth <= 0 || scoreBuckets <= 0)
+			throw new IllegalArgumentException("BatchStatistics : the score buckets must be > 0.");
+		this.scoreBucketWidth = scoreBucketWidth;
+		this.scoreHistogram = new long[scoreBuckets];
+	}
+
+	/**
+	 * Account for the result of a game.
+	 */
+	public void add(final GameResult result) {
+		++games;
+		if (!result.gameOver()) ++unfinishedGames;
+
+		final int score = result.score();
+		scoreSum += score;
+		scoreSquaresSum += (double) score * score;
+		minScore = Math.min(minScore, score);
+		maxScore = Math.max(maxScore, score);
+		++scoreHistogram[Math.min(Math.max(score, 0) / scoreBucketWidth, scoreHistogram.length - 1)];
+
+		linesSum += result.linesCleared();
+		minLines = Math.min(minLines, result.linesCleared());
+		maxLines = Math.max(maxLines, result.linesCleared());
+
+		ticksSum += result.ticks();
+		minTicks = Math.min(minTicks, result.ticks());
+		maxTicks = Math.max(maxTicks, result.ticks());
+
+		tetriminosSum += result.tetriminosSpawned();
+	}
+
+	/**
+	 * Add the statistics of another batch to this one.
+	 * @param other Statistics with the same score distribution buckets.
+	 * @return This instance.
+	 */
+	public BatchStatistics merge(final BatchStatistics other) {
+		if (other.scoreBucketWidth != scoreBucketWidth
+			|| other.scoreHistogram.length != scoreHistogram.length)
+			throw new IllegalArgumentException("BatchStatistics.merge : different score buckets.");
+
+		games += other.games;
+		unfinishedGames += other.unfinishedGames;
+
+		scoreSum += other.scoreSum;
+		scoreSquaresSum += other.scoreSquaresSum;
+		minScore = Math.min(minScore, other.minScore);
+		maxScore = Math.max(maxScore, other.maxScore);
+		for (int i = 0; i < scoreHistogram.length; i++) {
+			scoreHistogram[i] += other.scoreHistogram[i];
+		}
+
+		linesSum += other.linesSum;
+		minLines = Math.min(minLines, other.minLines);
+		maxLines = Math.max(maxLines, other.maxLines);
+
+		ticksSum += other.ticksSum;
+		minTicks = Math.min(minTicks, other.minTicks);
+		maxTicks = Math.max(maxTicks, other.maxTicks);
+
+		tetriminosSum += other.tetriminosSum;
+
+		return this;
+	}
+
+	public long games() { return games; }
+
+	/**
+	 * Number of games stopped by the tick limit before being lost.
+	 */
+	public long unfinishedGames() { return unfinishedGames; }
+
+	public double meanScore() { return games == 0 ? 0 : (double) scoreSum / games; }
+
+	public double scoreStandardDeviation() {
+		if (games == 0) return 0;
+		final double mean = meanScore();
+		return Math.sqrt(Math.max(0, scoreSquaresSum / games - mean * mean));
+	}
+
+	public int minScore() { return games == 0 ? 0 : minScore; }
+	public int maxScore() { return games == 0 ? 0 : maxScore; }
+
+	/**
+	 * Estimate a percentile of the scores from their distribution.
+	 * @param percentile Percentile between 0 and 100.
+	 * @return Lower bound of the bucket containing the percentile.
+	 */
+	public int scorePercentile(final double percentile) {
+		if (games == 0) return 0;
+		final long rank = (long) Math.ceil(percentile / 100 * games);
+		long count = 0;
+		for (int i = 0; i < scoreHistogram.length; i++) {
+			count += scoreHistogram[i];
+			if (count >= rank) return i * scoreBucketWidth;
+		}
+		return (scoreHistogram.length - 1) * scoreBucketWidth;
+	}
+
+	public int scoreBucketWidth() { return scoreBucketWidth; }
+
+	/**
+	 * Get the number of games whose score falls in a bucket of the distribution.
+	 */
+	public long scoreBucket(final int i) { return scoreHistogram[i]; }
+
+	public int scoreBuckets() { return scoreHistogram.length; }
+
+	public double meanLinesCleared() { return games == 0 ? 0 : (double) linesSum / games; }
+	public int minLinesCleared() { return games == 0 ? 0 : minLines; }
+	public int maxLinesCleared() { return games == 0 ? 0 : maxLines; }
+	public long totalLinesCleared() { return linesSum; }
+
+	public double meanTicks() { return games == 0 ? 0 : (double) ticksSum / games; }
+	public int minTicks() { return games == 0 ? 0 : minTicks; }
+	public int maxTicks() { return games == 0 ? 0 : maxTicks; }
+	public long totalTicks() { return ticksSum; }
+
+	public double meanTetriminos() { return games == 0 ? 0 : (double) tetriminosSum / games; }
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append(String.format("games : %d (%d stopped by the tick limit)\n", games, unfinishedGames));
+		builder.append(String.format("score : mean = %.1f, stddev = %.1f, min = %d, max = %d\n",
+									 meanScore(), scoreStandardDeviation(), minScore(), maxScore()));
+		builder.append(String.format("score percentiles : p50 >= %d, p90 >= %d, p99 >= %d\n",
+									 scorePercentile(50), scorePercentile(90), scorePercentile(99)));
+		builder.append(String.format("lines cleared : mean = %.2f, min = %d, max = %d, total = %d\n",
+									 meanLinesCleared(), minLinesCleared(), maxLinesCleared(), linesSum));
+		builder.append(String.format("game length (ticks) : mean = %.1f, min = %d, max = %d\n",
+									 meanTicks(), minTicks(), maxTicks()));
+		builder.append(String.format("tetriminos per game : mean = %.1f\n", meanTetriminos()));
+
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,35 @@
+package simulation;
+
+/**
+ * The outcome of a simulated game.
+ */
+public class GameResult {
+	private final long seed;
+	private final int score;
+	private final int linesCleared;
+	private final int ticks;
+	private final int tetriminosSpawned;
+	private final boolean gameOver;
+
+	public GameResult(final long seed, final int score, final int linesCleared,
+					  final int ticks, final int tetriminosSpawned, final boolean gameOver) {
+		this.seed = seed;
+		this.score = score;
+		this.linesCleared = linesCleared;
+		this.ticks = ticks;
+		this.tetriminosSpawned = tetriminosSpawned;
+		this.gameOver = gameOver;
+	}
+
+	public long seed() { return seed; }
+	public int score() { return score; }
+	public int linesCleared() { return linesCleared; }
+	public int ticks() { return ticks; }
+	public int tetriminosSpawned() { return tetriminosSpawned; }
+
+	/**
+	 * False if the game was stopped by the simulator's tick limit before being lost.
+	 */
+	public boolean gameOver() { return gameOver; }
+
+}
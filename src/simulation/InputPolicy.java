@@ -0,0 +1,31 @@
+package simulation;
+
+import model.TetrisAction;
+import model.TetrisEngine;
+
+/**
+ * Decides the actions of the player of a simulated game.
+ *
+ * An InputPolicy instance drives a single game at a time and may keep state
+ * between its calls, but must not share mutable state with other instances
+ * since games are played concurrently.
+ */
+public interface InputPolicy {
+
+	/**
+	 * Called when a new game starts.
+	 */
+	void reset(final TetrisEngine engine);
+
+	/**
+	 * Choose the next action to perform before the next tick of the game.
+	 *
+	 * This is called repeatedly between two ticks, until it returns
+	 * TetrisAction.NONE or the simulator's limit of actions per tick is reached.
+	 *
+	 * @param engine The game being played. Must not be modified by the policy.
+	 * @return The action to perform, or TetrisAction.NONE to let the game tick.
+	 */
+	TetrisAction nextAction(final TetrisEngine engine);
+
+}
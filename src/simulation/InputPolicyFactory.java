@@ -0,0 +1,14 @@
+package simulation;
+
+/**
+ * Creates the InputPolicy instances of the simulated games.
+ */
+public interface InputPolicyFactory {
+
+	/**
+	 * Create a new policy.
+	 * @param seed Seed that the policy should use for its own random decisions.
+	 */
+	InputPolicy create(final long seed);
+
+}
@@ -0,0 +1,38 @@
+package simulation;
+
+import model.TetrisAction;
+import model.TetrisEngine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Input policy performing at most one uniformly random action per tick.
+ *
+ * The hard drop is not part of the random actions : it would end most of the
+ * falls after a few ticks and change the statistics of the random games.
+ */
+public class RandomInputPolicy implements InputPolicy {
+	private static final TetrisAction[] ACTIONS = {
+		TetrisAction.NONE, TetrisAction.LEFT, TetrisAction.RIGHT, TetrisAction.ROTATE, TetrisAction.SOFT_DROP
+	};
+
+	private final SplittableRandom random;
+	private int lastTick = -1;
+
+	public RandomInputPolicy(final long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	@Override
+	public void reset(final TetrisEngine engine) {
+		lastTick = -1;
+	}
+
+	@Override
+	public TetrisAction nextAction(final TetrisEngine engine) {
+		if (engine.getTicks() == lastTick) return TetrisAction.NONE;
+		lastTick = engine.getTicks();
+		return ACTIONS[random.nextInt(ACTIONS.length)];
+	}
+
+}
@@ -0,0 +1,335 @@
+package simulation;
+
+import model.TetriminoKicks;
+import model.TetriminoShape;
+import model.TetriminoType;
+import model.TetrisAction;
+import model.TetrisConfiguration;
+import model.TetrisEngine;
+import model.TetrisRandom;
+import model.TetrisRules;
+
+/**
+ * A batch of independent headless games stepped together, for the training
+ * workloads which play millions of short games.
+ *
+ * The state of all the games is stored in primitive arrays (row masks of the
+ * boards, current tetrimino, counters...) indexed by game, instead of one
+ * TetrisEngine object graph per game, and the observations are written into a
+ * single reusable int array : stepping the games allocates nothing.
+ *
+ * Each game follows exactly the rules of TetrisEngine, a step being the action
+ * followed by a tick : the collisions, wall kicks, line clears, spawn columns
+ * and scoring are the ones of TetrisRules, TetriminoKicks and TetrisEngine
+ * over the row masks of the game, and its tetrimino sequence is drawn from its
+ * own TetrisRandom like the engine's. Lost games ignore the actions until they
+ * are reset. The games can be stepped by range, to split a batch between threads.
+ */
+public class VectorEnvironment {
+	/**
+	 * Offsets of the features of a game's observation, after its row masks.
+	 */
+	public static final int TYPE = 0;
+	public static final int ROTATION = 1;
+	public static final int X = 2;
+	public static final int Y = 3;
+	public static final int NEXT_TYPE = 4;
+	public static final int SCORE = 5;
+	public static final int LINES_CLEARED = 6;
+	public static final int GAME_OVER = 7;
+	public static final int FEATURES = 8;
+
+	/**
+	 * NB : values() returns a new array at each call.
+	 */
+	private static final TetrisAction[] ACTIONS = TetrisAction.values();
+	private static final TetriminoType[] TYPE_VALUES = TetriminoType.values();
+
+	private final int count;
+	private final int width;
+	private final int height;
+	private final int fullMask;
+	private final int stride;
+
+	/**
+	 * Row masks of the boards : rows[game * height + y].
+	 */
+	private final int[] rows;
+
+	/**
+	 * Current tetrimino of each game.
+	 */
+	private final byte[] types;
+	private final byte[] rotations;
+	private final int[] xs;
+	private final int[] ys;
+	private final byte[] nextTypes;
+
+	private final TetrisRandom[] randoms;
+	private final int[] scores;
+	private final int[] linesCleared;
+	private final int[] ticks;
+	private final boolean[] gameOver;
+
+	/**
+	 * Score gained by each game during the last step.
+	 */
+	private final int[] rewards;
+
+	/**
+	 * Observation of each game : observations[game * stride + i], with its row
+	 * masks for i < height, then its features at height + TYPE, ROTATION...
+	 */
+	private final int[] observations;
+
+	/**
+	 * @param count Number of games.
+	 * @param configuration Rules of the games.
+	 */
+	public VectorEnvironment(final int count, final TetrisConfiguration configuration) {
+		if (count <= 0)
+			throw new IllegalArgumentException("VectorEnvironment : count must be > 0.");
+		if (configuration == null)
+			throw new IllegalArgumentException("VectorEnvironment : null TetrisConfiguration.");
+
+		this.count = count;
+		this.width = configuration.width();
+		this.height = configuration.height();
+		this.fullMask = (1 << width) - 1;
+		this.stride = height + FEATURES;
+
+		rows = new int[count * height];
+		types = new byte[count];
+		rotations = new byte[count];
+		xs = new int[count];
+		ys = new int[count];
+		nextTypes = new byte[count];
+		randoms = new TetrisRandom[count];
+		for (int game = 0; game < count; game++) {
+			randoms[game] = new TetrisRandom(0);
+		}
+		scores = new int[count];
+		linesCleared = new int[count];
+		ticks = new int[count];
+		gameOver = new boolean[count];
+		rewards = new int[count];
+		observations = new int[count * stride];
+	}
+
+	/**
+	 * Start a new game in each environment.
+	 * @param seeds Seed of the tetrimino sequence of each game.
+	 */
+	public void reset(final long[] seeds) {
+		if (seeds.length != count)
+			throw new IllegalArgumentException("VectorEnvironment.reset : one seed per game expected.");
+		for (int game = 0; game < count; game++) {
+			reset(game, seeds[game]);
+		}
+	}
+
+	/**
+	 * Start a new game in one environment.
+	 */
+	public void reset(final int game, final long seed) {
+		for (int y = game * height, end = y + height; y < end; y++) {
+			rows[y] = 0;
+		}
+		scores[game] = linesCleared[game] = ticks[game] = rewards[game] = 0;
+		gameOver[game] = false;
+
+		randoms[game].setSeed(seed);
+		nextTypes[game] = (byte) TetriminoType.getRandomType(randoms[game]).ordinal();
+		spawn(game);
+		observe(game);
+	}
+
+	/**
+	 * Step all the games : perform an action then tick.
+	 * @param actions Ordinal of the TetrisAction of each game.
+	 */
+	public void step(final int[] actions) {
+		step(actions, 0, count);
+	}
+
+	/**
+	 * Step the games of indices [from, to).
+	 * @param actions Ordinal of the TetrisAction of each game (indexed from 0).
+	 */
+	public void step(final int[] actions, final int from, final int to) {
+		if (actions.length != count)
+			throw new IllegalArgumentException("VectorEnvironment.step : one action per game expected.");
+		if (from < 0 || to > count || from > to)
+			throw new IllegalArgumentException("VectorEnvironment.step : invalid range of games.");
+
+		for (int game = from; game < to; game++) {
+			rewards[game] = 0;
+			if (gameOver[game]) continue;
+
+			final int scoreBefore = scores[game];
+			apply(game, ACTIONS[actions[game]]);
+			if (!gameOver[game]) {
+				++ticks[game];
+				moveDown(game);
+			}
+			rewards[game] = scores[game] - scoreBefore;
+			observe(game);
+		}
+	}
+
+	private void apply(final int game, final TetrisAction action) {
+		switch (action) {
+		case LEFT:
+			move(game, -1);
+			break;
+		case RIGHT:
+			move(game, +1);
+			break;
+		case ROTATE:
+			rotate(game);
+			break;
+		case SOFT_DROP:
+			moveDown(game);
+			break;
+		case HARD_DROP:
+			while (fits(game, shape(game), xs[game], ys[game] + 1)) {
+				++ys[game];
+			}
+			lock(game);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void move(final int game, final int deltaX) {
+		if (fits(game, shape(game), xs[game] + deltaX, ys[game])) xs[game] += deltaX;
+	}
+
+	private void moveDown(final int game) {
+		if (fits(game, shape(game), xs[game], ys[game] + 1)) {
+			++ys[game];
+		} else {
+			lock(game);
+		}
+	}
+
+	/**
+	 * Rotate the current tetrimino clockwise, with the wall kicks of TetrisEngine.
+	 */
+	private void rotate(final int game) {
+		final TetriminoType type = TYPE_VALUES[types[game]];
+		final int rotation = rotations[game];
+		final int rotated = (rotation + 1) & (TetriminoShape.ROTATIONS - 1);
+		final TetriminoShape shape = TetriminoShape.get(type, rotated);
+		final int[] kicks = TetriminoKicks.get(type, true);
+		final int kick = TetrisRules.findKick(rows, game * height, width, height, kicks, shape, xs[game], ys[game]);
+		if (kick >= 0) {
+			rotations[game] = (byte) rotated;
+			xs[game] += kicks[kick];
+			ys[game] += kicks[kick + 1];
+		}
+	}
+
+	/**
+	 * Add the current tetrimino to the board, clear the complete lines and spawn
+	 * the next tetrimino.
+	 */
+	private void lock(final int game) {
+		final TetriminoShape shape = shape(game);
+		final int base = game * height, x = xs[game], y = ys[game];
+		for (int j = shape.minY(); j <= shape.maxY(); j++) {
+			rows[base + y + j] |= TetrisRules.shiftedRowMask(shape, j, x);
+		}
+
+		final int lines = TetrisRules.clearLines(rows, base, height, fullMask);
+		if (lines > 0) {
+			linesCleared[game] += lines;
+			scores[game] += TetrisEngine.computeScore(lines);
+		}
+
+		spawn(game);
+	}
+
+	/**
+	 * Spawn the next tetrimino in the first spawn column where it fits.
+	 */
+	private void spawn(final int game) {
+		types[game] = nextTypes[game];
+		nextTypes[game] = (byte) TetriminoType.getRandomType(randoms[game]).ordinal();
+		rotations[game] = 0;
+		ys[game] = 0;
+
+		final TetriminoShape shape = shape(game);
+		int spawnPosition = -1;
+		for (int attempt = 0; attempt < TetrisRules.spawnAttempts(width); attempt++) {
+			final int x = TetrisRules.spawnColumn(width, attempt);
+			if (fits(game, shape, x, 0)) {
+				spawnPosition = x;
+				break;
+			}
+		}
+
+		if (spawnPosition < 0) {
+			xs[game] = 0;
+			gameOver[game] = true;
+		} else {
+			xs[game] = spawnPosition;
+		}
+	}
+
+	private boolean fits(final int game, final TetriminoShape shape, final int posX, final int posY) {
+		return TetrisRules.fits(rows, game * height, width, height, shape, posX, posY);
+	}
+
+	private TetriminoShape shape(final int game) {
+		return TetriminoShape.get(TYPE_VALUES[types[game]], rotations[game]);
+	}
+
+	/**
+	 * Write the observation of a game.
+	 */
+	private void observe(final int game) {
+		final int offset = game * stride;
+		System.arraycopy(rows, game * height, observations, offset, height);
+		final int features = offset + height;
+		observations[features + TYPE] = types[game];
+		observations[features + ROTATION] = rotations[game];
+		observations[features + X] = xs[game];
+		observations[features + Y] = ys[game];
+		observations[features + NEXT_TYPE] = nextTypes[game];
+		observations[features + SCORE] = scores[game];
+		observations[features + LINES_CLEARED] = linesCleared[game];
+		observations[features + GAME_OVER] = gameOver[game] ? 1 : 0;
+	}
+
+	/**
+	 * Get the observations of the games, updated in place by each step and reset.
+	 */
+	public int[] getObservations() { return observations; }
+
+	/**
+	 * Get the number of ints of the observation of a game (height of the board + FEATURES).
+	 */
+	public int getObservationStride() { return stride; }
+
+	/**
+	 * Get the score gained by each game during the last step, updated in place.
+	 */
+	public int[] getRewards() { return rewards; }
+
+	public int getCount() { return count; }
+	public int getWidth() { return width; }
+	public int getHeight() { return height; }
+
+	public int getScore(final int game) { return scores[game]; }
+	public int getLinesCleared(final int game) { return linesCleared[game]; }
+	public int getTicks(final int game) { return ticks[game]; }
+	public boolean isGameOver(final int game) { return gameOver[game]; }
+
+	/**
+	 * Get a row mask of the board of a game.
+	 */
+	public int getRow(final int game, final int y) { return rows[game * height + y]; }
+
+}
@@ -0,0 +1,104 @@
+package view;
+
+import model.TetriminoColor;
+import model.TetriminoPalette;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Pre-rendered sprites of the blocks of each color of TetriminoPalette, stored
+ * in a grid in a single image compatible with the display.
+ *
+ * Drawing a block is then a single image copy, whatever the complexity of its
+ * art. A sprite is rendered the first time its color is drawn. The atlas is
+ * tied to a block size and a graphics configuration, and must be rebuilt when
+ * one of them changes.
+ */
+public class BlockAtlas {
+	/**
+	 * Number of sprites per row of the atlas.
+	 */
+	private static final int COLUMNS = 16;
+
+	/**
+	 * Width of the bevel of the blocks, as a fraction of their size.
+	 */
+	private static final int BEVEL_RATIO = 8;
+
+	private final GraphicsConfiguration graphicsConfiguration;
+	private final int size;
+	private final BufferedImage image;
+
+	/**
+	 * True for the palette indices whose sprite was rendered.
+	 */
+	private final boolean[] rendered = new boolean[TetriminoPalette.SIZE];
+
+	/**
+	 * @param graphicsConfiguration Configuration of the destination of the sprites.
+	 * @param size Size of a block, in pixels.
+	 */
+	public BlockAtlas(final GraphicsConfiguration graphicsConfiguration, final int size) {
+		if (size <= 0)
+			throw new IllegalArgumentException("BlockAtlas : size must be > 0.");
+
+		this.graphicsConfiguration = graphicsConfiguration;
+		this.size = size;
+		image = graphicsConfiguration.createCompatibleImage(COLUMNS * size,
+			(TetriminoPalette.SIZE / COLUMNS) * size);
+	}
+
+	/**
+	 * Paint a block : its color, lit from the top left.
+	 */
+	public static void paintBlock(final Graphics2D g2d, final Color color, final int x, final int y, final int size) {
+		final int bevel = Math.max(1, size / BEVEL_RATIO);
+
+		g2d.setColor(color.darker());
+		g2d.fillRect(x, y, size, size);
+		g2d.setColor(color.brighter());
+		g2d.fillPolygon(new int[] { x, x + size, x + size - bevel, x + bevel, x + bevel, x },
+						new int[] { y, y, y + bevel, y + bevel, y + size - bevel, y + size }, 6);
+		g2d.setColor(color);
+		g2d.fillRect(x + bevel, y + bevel, size - 2 * bevel, size - 2 * bevel);
+	}
+
+	/**
+	 * Check if the atlas can be used for the given block size and destination.
+	 */
+	public boolean matches(final GraphicsConfiguration graphicsConfiguration, final int size) {
+		return this.size == size && this.graphicsConfiguration == graphicsConfiguration;
+	}
+
+	public int size() { return size; }
+
+	/**
+	 * Draw the block of a palette color.
+	 * @param g Destination.
+	 * @param paletteIndex Index of the color in TetriminoPalette.
+	 * @param x Horizontal position of the block, in pixels.
+	 * @param y Vertical position of the block, in pixels.
+	 */
+	public void draw(final Graphics g, final int paletteIndex, final int x, final int y) {
+		final int spriteX = (paletteIndex % COLUMNS) * size, spriteY = (paletteIndex / COLUMNS) * size;
+		if (!rendered[paletteIndex]) {
+			final Graphics2D g2d = image.createGraphics();
+			try {
+				paintBlock(g2d, TetrisView.colorToSwing(paletteIndex), spriteX, spriteY, size);
+			} finally {
+				g2d.dispose();
+			}
+			rendered[paletteIndex] = true;
+		}
+		g.drawImage(image, x, y, x + size, y + size, spriteX, spriteY, spriteX + size, spriteY + size, null);
+	}
+
+	/**
+	 * Draw a block of the given color.
+	 */
+	public void draw(final Graphics g, final TetriminoColor color, final int x, final int y) {
+		draw(g, color.paletteIndex(), x, y);
+	}
+
+}
@@ -1,24 +1,40 @@
 package view;
 
 import model.TetriminoColor;
-import model.TetrisBoard;
-import model.TetrisModel;
+import model.TetriminoPalette;
+import model.TetrisConfiguration;
 import view.screens.Screen;
 import view.screens.ScreenContainer;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.image.VolatileImage;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The Tetris game view.
  * This is a container for Screen instances.
+ *
+ * The Screens are run by a dedicated loop thread : it updates the current
+ * Screen at the fixed interval of its update rate (measured with an accumulator
+ * of the elapsed time), and repaints the view at the display rate in between,
+ * so that the inputs show on screen immediately. The Screens are updated,
+ * rendered and passed the key events under the same lock.
+ *
+ * By default, the frames are painted by Swing. In active rendering mode, the
+ * loop thread renders them itself into a VolatileImage back buffer copied to a
+ * Canvas, and paces them with Toolkit.sync : the frames no longer wait for the
+ * repaint manager, which may coalesce or delay them on a busy machine. The
+ * contents of the back buffer are kept between frames, like Swing's.
+ *
+ * In both modes, each frame only repaints the region changed according to the
+ * current Screen, and the whole view after a Screen change.
  */
-public class TetrisView extends JPanel implements KeyListener, ActionListener, ScreenContainer {
+public class TetrisView extends JPanel implements KeyListener, ScreenContainer {
 	private static final long serialVersionUID = 1L;
 
 	/**
@@ -26,42 +42,150 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 	 */
 	private static final Font TEXT_FONT = new Font(Font.SERIF, Font.BOLD, 16);
 
+	/**
+	 * Frame rate used when the refresh rate of the display is unknown.
+	 */
+	private static final int DEFAULT_FRAME_RATE = 60;
+
+	/**
+	 * Maximum number of updates performed before a frame, so that the loop
+	 * catches up after a pause instead of never rendering again.
+	 */
+	private static final int MAX_UPDATES_PER_FRAME = 5;
+
+	/**
+	 * The Swing equivalent of each color of TetriminoPalette, created on first use.
+	 * NB : Color has non-final fields, so the colors are published through an
+	 * atomic array ; a race between two threads only creates the same Color twice.
+	 */
+	private static final AtomicReferenceArray<Color> SWING_COLORS = new AtomicReferenceArray<>(TetriminoPalette.SIZE);
+
 	private Stack<Screen> screens = new Stack<>();
 	private Screen currentScreen;
 	private Screen screenToAdd = null;
 
-	private Timer timer;
+	/**
+	 * Guards the Screens, between the loop thread and the Swing thread.
+	 */
+	private final Object lock = new Object();
+
+	private final Thread loopThread;
+	private volatile boolean running = true;
+
+	/**
+	 * Set when the current Screen changed, to restart the accumulation of its updates.
+	 */
+	private boolean screenChanged = false;
+
+	/**
+	 * Set when the current Screen changed, to repaint the whole view at the next frame.
+	 */
+	private boolean repaintAll = true;
+
+	/**
+	 * Fraction of the update interval of the current Screen elapsed since its
+	 * last update, in [0, 1).
+	 */
+	private double interpolation = 0;
+
+	/**
+	 * The region of the view changed by the current frame (only used by the loop thread).
+	 */
+	private final Rectangle frameRegion = new Rectangle();
+
+	/**
+	 * The surface of the active rendering mode (null in passive mode), and its
+	 * back buffer (only used by the loop thread).
+	 */
+	private final Canvas canvas;
+	private VolatileImage backBuffer = null;
+
+	/**
+	 * Set when the canvas was damaged, to copy the whole back buffer at the next frame.
+	 */
+	private volatile boolean canvasDamaged = true;
 
 	private final TetrisSoundManager soundManager;
 
-	public TetrisView(final Screen screen) {
+	/**
+	 * Create a view painted by Swing.
+	 * @param screen The first Screen to display.
+	 * @param configuration Rules of the game, used to size the view.
+	 */
+	public TetrisView(final Screen screen, final TetrisConfiguration configuration) {
+		this(screen, configuration, false);
+	}
+
+	/**
+	 * @param screen The first Screen to display.
+	 * @param configuration Rules of the game, used to size the view.
+	 * @param activeRendering If true, render the frames from the loop thread.
+	 */
+	public TetrisView(final Screen screen, final TetrisConfiguration configuration,
+					  final boolean activeRendering) {
 		// sanity check
 		if (screen == null)
 			throw new IllegalArgumentException("TetrisView : null Screen, aborting.");
 
-		setPreferredSize(new Dimension((TetrisBoard.WIDTH + 2) * TetrisModel.PIECE_SIZE,
-							           (TetrisBoard.HEIGHT + 2) * TetrisModel.PIECE_SIZE));
+		setPreferredSize(new Dimension((configuration.width() + 2) * configuration.pieceSize(),
+							           (configuration.height() + 2) * configuration.pieceSize()));
+
+		// the key events go to the component which is drawn on
+		final Component surface;
+		if (activeRendering) {
+			canvas = new Canvas() {
+				private static final long serialVersionUID = 1L;
+
+				// the loop thread repaints the damaged canvas instead of AWT
+				@Override
+				public void paint(final Graphics g) {
+					canvasDamaged = true;
+					LockSupport.unpark(loopThread);
+				}
+
+				@Override
+				public void update(final Graphics g) {
+					paint(g);
+				}
+			};
+			setIgnoreRepaint(true);
+			setFocusable(false);
+			setLayout(new BorderLayout());
+			add(canvas, BorderLayout.CENTER);
+			surface = canvas;
+		} else {
+			canvas = null;
+			surface = this;
+		}
 
-		setFocusable(true);
-		requestFocusInWindow();
+		surface.setFocusable(true);
+		surface.requestFocusInWindow();
 
 		// listen for key events
-		addKeyListener(this);
-
-		// screen management
-		timer = new Timer(1000, this);
-		setScreen(screen, true);
+		surface.addKeyListener(this);
 
 		// sound & music
         soundManager = new TetrisSoundManager();
         soundManager.startMusic();
+
+		// screen management
+		setScreen(screen, true);
+		loopThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				loop(1_000_000_000L / displayRefreshRate());
+			}
+		}, "Game loop");
+		loopThread.setDaemon(true);
+		loopThread.start();
 	}
 
 	/**
 	 * Add a Screen to the stack, initialize it and set it as the current one.
 	 *
 	 * The actual operation will be done after the current Screen's update
-	 * function returned, to allow this Screen to properly terminate if needed.
+	 * function returned, to allow this Screen to properly terminate if needed,
+	 * or before the next frame when requested by a key event.
 	 */
 	@Override
 	public void pushScreen(final Screen screen) {
@@ -82,7 +206,7 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 
 	@Override
 	public void requestExit() {
-		timer.stop();
+		running = false;
 		System.exit(0);
 	}
 
@@ -98,9 +222,9 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 	 * @param newScreen If true, initialize the Screen first.
 	 */
 	private void setScreen(final Screen screen, final boolean newScreen) {
-		timer.stop();
-
 		currentScreen = screen;
+		screenChanged = true;
+		repaintAll = true;
 
 		if (newScreen) {
 			screens.push(currentScreen);
@@ -112,24 +236,72 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 		} else {
 			currentScreen.onResume();
 		}
-
-		final int delay = currentScreen.updateRate();
-		timer.setInitialDelay(delay);
-		timer.setDelay(delay); // call this.actionPerformed at fixed intervals
-		timer.start();
 	}
 
-	@Override
-	public void actionPerformed(ActionEvent e) {
+	/**
+	 * Main loop of the loop thread.
+	 * @param frameInterval Interval between two frames, in nanoseconds.
+	 */
+	private void loop(final long frameInterval) {
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
+		long nextFrame = previousTime;
+
+		while (running) {
+			final long now = System.nanoTime();
+			accumulator += now - previousTime;
+			previousTime = now;
+
+			final boolean fullFrame;
+			synchronized (lock) {
+				// Screen pushed by a key event
+				pushRequestedScreen();
+
+				// fixed timestep updates of the current Screen
+				int updates = 0;
+				while (running) {
+					if (screenChanged) { // a new Screen waits for its first full interval
+						screenChanged = false;
+						accumulator = 0;
+					}
+					final long updateInterval = currentScreen.updateRate() * 1_000_000L;
+					if (accumulator < updateInterval) {
+						interpolation = (double) accumulator / updateInterval;
+						break;
+					}
+					if (updates++ == MAX_UPDATES_PER_FRAME) {
+						accumulator = 0;
+						interpolation = 0;
+						break;
+					}
+					accumulator -= updateInterval;
+					updateScreens();
+				}
+
+				// region of the view to refresh
+				final Rectangle region = currentScreen.changedRegion(interpolation);
+				fullFrame = repaintAll || region == null;
+				repaintAll = false;
+				if (!fullFrame) frameRegion.setBounds(region);
+			}
 
-		if (currentScreen == null) return;
+			renderFrame(fullFrame); // refresh the view
 
+			nextFrame = Math.max(nextFrame + frameInterval, System.nanoTime());
+			LockSupport.parkNanos(nextFrame - System.nanoTime());
+		}
+	}
+
+	/**
+	 * Update the current Screen, then perform the requested Screen changes.
+	 */
+	private void updateScreens() {
 		// current screen update
 		if (currentScreen.update()) { // terminate the current Screen ?
 			screens.pop();
 
 			if (screens.empty() && screenToAdd == null) { // last Screen : exit
-				timer.stop();
+				running = false;
 				System.exit(0);
 				return;
 			}
@@ -137,14 +309,90 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 			setScreen(screens.peek(), false); // resume the previous Screen's execution
 		}
 
-		// Screen push ?
+		pushRequestedScreen();
+	}
+
+	/**
+	 * Perform the Screen push requested since the last update, if any.
+	 */
+	private void pushRequestedScreen() {
 		if (screenToAdd != null) {
 			setScreen(screenToAdd, true);
 			screenToAdd = null;
 			currentScreen = screens.peek();
 		}
+	}
+
+	/**
+	 * Get the refresh rate of the display, in hertz.
+	 */
+	private static int displayRefreshRate() {
+		if (GraphicsEnvironment.isHeadless()) return DEFAULT_FRAME_RATE;
+		final int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+			.getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+		return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_FRAME_RATE : refreshRate;
+	}
+
+	/**
+	 * Render a frame : directly in active rendering mode, otherwise by asking
+	 * Swing to repaint the view.
+	 * @param fullFrame If true, the whole view changed, otherwise only frameRegion.
+	 */
+	private void renderFrame(final boolean fullFrame) {
+		if (canvas == null) {
+			if (fullFrame) {
+				repaint();
+			} else if (!frameRegion.isEmpty()) {
+				repaint(frameRegion.x, frameRegion.y, frameRegion.width, frameRegion.height);
+			}
+			return;
+		}
 
-		repaint(); // refresh the view
+		boolean wholeBuffer = fullFrame;
+		if (canvasDamaged) {
+			canvasDamaged = false;
+			wholeBuffer = true;
+		}
+		if (!wholeBuffer && frameRegion.isEmpty()) return; // nothing to show
+
+		final Graphics target = canvas.getGraphics();
+		if (target == null) return; // not displayed yet
+		try {
+			final GraphicsConfiguration configuration = canvas.getGraphicsConfiguration();
+			do {
+				final int width = canvas.getWidth(), height = canvas.getHeight();
+				if (width <= 0 || height <= 0) return;
+				final int status = backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height
+					? VolatileImage.IMAGE_INCOMPATIBLE : backBuffer.validate(configuration);
+				if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+					if (backBuffer != null) backBuffer.flush();
+					backBuffer = configuration.createCompatibleVolatileImage(width, height);
+					wholeBuffer = true;
+				} else if (status == VolatileImage.IMAGE_RESTORED) {
+					wholeBuffer = true;
+				}
+
+				final Graphics2D g2d = backBuffer.createGraphics();
+				try {
+					if (!wholeBuffer) g2d.clipRect(frameRegion.x, frameRegion.y, frameRegion.width, frameRegion.height);
+					synchronized (lock) {
+						if (currentScreen != null) paintScreen(g2d);
+					}
+				} finally {
+					g2d.dispose();
+				}
+				if (wholeBuffer) {
+					target.drawImage(backBuffer, 0, 0, null);
+				} else {
+					final int x = frameRegion.x, y = frameRegion.y;
+					final int right = x + frameRegion.width, bottom = y + frameRegion.height;
+					target.drawImage(backBuffer, x, y, right, bottom, x, y, right, bottom, null);
+				}
+			} while (backBuffer.contentsLost());
+		} finally {
+			target.dispose();
+		}
+		Toolkit.getDefaultToolkit().sync(); // flush the frame to the display
 	}
 
 	/**
@@ -152,9 +400,17 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 	 */
 	@Override
 	public void paint(Graphics g) {
-		if (currentScreen == null) return;
+		if (canvas != null) {
+			super.paint(g); // the canvas
+			return;
+		}
+		synchronized (lock) {
+			if (currentScreen == null) return;
+			paintScreen((Graphics2D) g);
+		}
+	}
 
-		final Graphics2D g2d = (Graphics2D) g;
+	private void paintScreen(final Graphics2D g2d) {
 		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
 			RenderingHints.VALUE_ANTIALIAS_ON);
 		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
@@ -166,14 +422,27 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 			g2d.fillRect(0, 0, getWidth(), getHeight());
 		}
 		// render the current screen
-		currentScreen.render(g2d, TEXT_FONT);
+		currentScreen.render(g2d, TEXT_FONT, interpolation);
 	}
 
 	/**
 	 * Convert the game's internal color representation to the Swing equivalent.
 	 */
 	public static Color colorToSwing(final TetriminoColor color) {
-		return new Color(color.red(), color.green(), color.blue());
+		return colorToSwing(color.paletteIndex());
+	}
+
+	/**
+	 * Get the Swing equivalent of a color of TetriminoPalette.
+	 */
+	public static Color colorToSwing(final int paletteIndex) {
+		Color color = SWING_COLORS.get(paletteIndex);
+		if (color == null) {
+			final TetriminoColor tetriminoColor = TetriminoPalette.get(paletteIndex);
+			color = new Color(tetriminoColor.red(), tetriminoColor.green(), tetriminoColor.blue());
+			SWING_COLORS.set(paletteIndex, color);
+		}
+		return color;
 	}
 
 	/**
@@ -181,9 +450,14 @@ public class TetrisView extends JPanel implements KeyListener, ActionListener, S
 	 */
 	@Override
 	public void keyPressed(final KeyEvent e) {
-		if (currentScreen == null) return;
+		synchronized (lock) {
+			if (currentScreen == null) return;
 
-		currentScreen.keyPressed(e);
+			currentScreen.keyPressed(e);
+		}
+		// show the input without waiting for the next frame : the loop thread
+		// repaints the region it changed at once
+		LockSupport.unpark(loopThread);
 	}
 
 	@Override
@@ -1,6 +1,8 @@
 package view.screens;
 
 import control.TetrisController;
+import log.EventLog;
+import log.EventType;
 import model.TetrisGameSession;
 import view.RenderingUtilities;
 
@@ -36,7 +38,7 @@ public class GameOverScreen extends Screen {
     @Override
     public boolean update() {
         if (finished && playerName.trim().length() > 0) {
-            System.out.format("Player name input : \"%s\".\n", playerName);
+            EventLog.get().log(EventType.PLAYER_NAME_INPUT, playerName);
             gameController.submitHighScoreAndSave(playerName, gameSession.score());
 
             final Screen nextScreen = new HighScoresScreen(gameController.getHighscores(), false)
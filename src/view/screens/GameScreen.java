@@ -1,14 +1,21 @@
 package view.screens;
 
+import ai.HeuristicWeights;
+import ai.PlacementSearch;
+import ai.TetrisBot;
 import control.TetrisController;
 import model.Tetrimino;
+import model.TetriminoPalette;
+import model.TetriminoShape;
 import model.TetrisBoard;
-import model.TetrisBoardCell;
-import model.TetrisModel;
+import model.TetrisConfiguration;
+import view.BlockAtlas;
 import view.TetrisView;
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The GameScreen Screen contains the actual Tetris game.
@@ -30,20 +37,106 @@ public class GameScreen extends Screen {
 	 */
 	private static final Color BORDER_COLOR = Color.GREEN;
 
+	/**
+	 * Palette index of the color of the blocks of the board in debug mode.
+	 */
+	private static final int DEBUG_COLOR = TetriminoPalette.intern(255, 0, 0);
+
+	/**
+	 * Color of the outline of the landing position of the tetrimino.
+	 */
+	private static final Color GHOST_COLOR = Color.GRAY;
+
+	/**
+	 * Maximum thinking time of the bot per tetrimino, in milliseconds.
+	 */
+	private static final int BOT_TIME_BUDGET = 50;
+
 	/**
 	 * The game's controller.
 	 */
 	private TetrisController gameController;
 
+	/**
+	 * The rules of the game.
+	 */
+	private final TetrisConfiguration configuration;
+
 	/**
 	 * If true, debug mode will be activated (for test purposes).
 	 */
 	private boolean debugMode = false;
 
+	/**
+	 * The bot playing in place of the player (null if the player plays).
+	 */
+	private TetrisBot bot = null;
+
+	/**
+	 * Pre-rendered border and background of the game.
+	 */
+	private BufferedImage staticLayer = null;
+
+	/**
+	 * Sprites of the blocks.
+	 */
+	private BlockAtlas atlas = null;
+
+	/**
+	 * Persistent image of the board : the static layer, the blocks of the board
+	 * and the landing position outline. Only its changed cells are redrawn at
+	 * each frame.
+	 */
+	private BufferedImage boardLayer = null;
+
+	/**
+	 * If true, all the cells of the board layer are redrawn at the next frame.
+	 */
+	private boolean redrawBoard = true;
+
+	/**
+	 * The changed cells of each row, as reported by the model.
+	 */
+	private final int[] dirtyCells;
+
+	/**
+	 * The frame drawn by the renders : the tetrimino (its shape, color and
+	 * position on screen) and the HUD text, as captured with the board layer.
+	 */
+	private TetriminoShape frameShape;
+	private int frameColor, frameX, frameY;
+	private int hudScore = -1;
+	private String hudText;
+
+	/**
+	 * If true, the frame was captured by changedRegion and is rendered as is,
+	 * so that every render matches the region repainted by the container.
+	 */
+	private boolean framePrepared = false;
+
+	/**
+	 * Bounds of the tetrimino on screen in the captured frame.
+	 */
+	private final Rectangle pieceBounds = new Rectangle(0, 0, -1, -1);
+
+	/**
+	 * Region of the screen changed by the captured frame.
+	 */
+	private final Rectangle region = new Rectangle();
+
+	/**
+	 * Scratch bounds of the HUD and of the clip of the renders.
+	 */
+	private final Rectangle hudBounds = new Rectangle(), clipBounds = new Rectangle();
+
 	public GameScreen(final TetrisController controller) {
-		super(TetrisModel.GAME_UPDATE_INTERVAL, BACKGROUND_COLOR);
+		super(controller.getConfiguration().gameUpdateInterval(), BACKGROUND_COLOR);
 
 		gameController = controller;
+		configuration = controller.getConfiguration();
+		dirtyCells = new int[configuration.height()];
+
+		clearScreen = false; // the game covers its whole region, and only its changes are repainted
 	}
 
 	@Override
@@ -55,6 +148,8 @@ public class GameScreen extends Screen {
 
 	@Override
 	public boolean update() {
+		if (bot != null) bot.play(gameController);
+
 		if (gameController.updateGame()) { // game over ?
 			final Screen nextScreen = new GameOverScreen(gameController);
 			container().pushScreen(nextScreen); // request a game over recap Screen
@@ -66,56 +161,222 @@ public class GameScreen extends Screen {
 
 	@Override
 	public void render(final Graphics2D g2d, final Font textFont) {
-		renderGame(g2d);
+		render(g2d, textFont, 0);
+	}
+
+	@Override
+	public void render(final Graphics2D g2d, final Font textFont, final double interpolation) {
+		final int size = blockSize();
+		if (updateLayers(g2d.getDeviceConfiguration(), size) || !framePrepared) {
+			prepareFrame(size, interpolation);
+		}
+		renderGame(g2d, size);
 		renderHud(g2d, textFont);
 	}
 
 	/**
-	 * Render the game's current state.
-	 * @param g2d Does the actual drawing of primitives.
+	 * The changed region is the union of the changed cells of the board, of
+	 * the previous and the new bounds of the tetrimino, and of the HUD if the
+	 * score changed.
 	 */
-	private void renderGame(Graphics2D g2d) {
-		final int size = TetrisModel.PIECE_SIZE;
+	@Override
+	public Rectangle changedRegion(final double interpolation) {
+		final int size = blockSize();
+		if (atlas == null || atlas.size() != size) { // the next render rebuilds the layers
+			framePrepared = false;
+			return null;
+		}
+		framePrepared = true;
+		return prepareFrame(size, interpolation);
+	}
 
-		// render the game border
-		g2d.setColor(BORDER_COLOR);
-		for (int x = 0; x < TetrisBoard.WIDTH + 2; x++) {
-			g2d.fillRect(x * size, 0, size, size);                               // top
-			g2d.fillRect(x * size, (TetrisBoard.HEIGHT + 1) * size, size, size); // bottom
+	/**
+	 * Redraw all the cells of the board layer at the next frame, for changes
+	 * of the board not reported by the model as changed cells.
+	 */
+	public void invalidate() {
+		redrawBoard = true;
+	}
+
+	/**
+	 * Get the size of a block on screen : the largest one showing the whole
+	 * board and its border in the container.
+	 */
+	private int blockSize() {
+		final int size = Math.min(container().containerWidth() / (configuration.width() + 2),
+								  container().containerHeight() / (configuration.height() + 2));
+		return size > 0 ? size : configuration.pieceSize();
+	}
+
+	/**
+	 * Capture the frame to render : redraw the changed cells of the board
+	 * layer, and record the tetrimino and the HUD text.
+	 * @param size Size of a block on screen.
+	 * @param interpolation Fraction of the interval until the next fall of the
+	 * tetrimino, which is drawn that far towards the row below if it is free.
+	 * @return The region of the screen changed since the previous capture.
+	 */
+	private Rectangle prepareFrame(final int size, final double interpolation) {
+		region.setBounds(0, 0, -1, -1);
+		updateBoardLayer(size);
+
+		// the tetrimino, at its previous and its new position
+		region.add(pieceBounds);
+		final Tetrimino t = gameController.getControlledTetrimino();
+		final TetriminoShape shape = t.getShape();
+		final int landingY = gameController.getLandingY();
+		final int fallOffset = landingY > t.getY() ? (int) (interpolation * size) : 0;
+		frameShape = shape;
+		frameColor = t.getColor().paletteIndex();
+		frameX = (t.getX() + 1) * size;
+		frameY = (t.getY() + 1) * size + fallOffset;
+		pieceBounds.setBounds(frameX + shape.minX() * size, frameY + shape.minY() * size,
+							  (shape.maxX() - shape.minX() + 1) * size, (shape.maxY() - shape.minY() + 1) * size);
+		region.add(pieceBounds);
+
+		// the HUD, over the top of the border
+		final int score = gameController.getScore();
+		if (score != hudScore) {
+			hudScore = score;
+			hudText = "Score : " + score;
+			hudBounds.setBounds(0, 0, container().containerWidth(), size);
+			region.add(hudBounds);
 		}
-		for (int y = 1; y < TetrisBoard.HEIGHT + 1; y++) {
-			g2d.fillRect(0, y * size, size, size);                               // left
-			g2d.fillRect((TetrisBoard.WIDTH + 1) * size, y * size, size, size);  // right
+		return region;
+	}
+
+	/**
+	 * Render the captured frame of the game.
+	 * @param g2d Does the actual drawing of primitives.
+	 * @param size Size of a block on screen.
+	 */
+	private void renderGame(final Graphics2D g2d, final int size) {
+		// the container around the board, only painted by the full repaints
+		clipBounds.setBounds(0, 0, container().containerWidth(), container().containerHeight());
+		g2d.getClipBounds(clipBounds);
+		if (clipBounds.x < 0 || clipBounds.y < 0 || clipBounds.x + clipBounds.width > boardLayer.getWidth()
+			|| clipBounds.y + clipBounds.height > boardLayer.getHeight()) {
+			g2d.setColor(BACKGROUND_COLOR);
+			g2d.fillRect(clipBounds.x, clipBounds.y, clipBounds.width, clipBounds.height);
 		}
 
-		// move the origin to the actual gameplay area
-		g2d.translate(size, size);
+		// the board, as of the last capture (only its clipped part is copied)
+		g2d.drawImage(boardLayer, 0, 0, null);
 
 		// render the currently controlled tetrimino
-		final Tetrimino t = gameController.getControlledTetrimino();
-		g2d.setColor(TetrisView.colorToSwing(t.getColor()));
-		for (int i = 0; i < 4; i++) {
-			for (int j = 0; j < 4; j++) {
-				if (!t.getBlock(i, j)) continue;
-				g2d.fillRect((t.getX() + i) * size, (t.getY() + j) * size, size, size);
+		for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+			atlas.draw(g2d, frameColor, frameX + frameShape.blockX(i) * size, frameY + frameShape.blockY(i) * size);
+		}
+	}
+
+	/**
+	 * Rebuild the cached layers and sprites if the block size or the
+	 * destination changed.
+	 * @return True if the layers were rebuilt.
+	 */
+	private boolean updateLayers(final GraphicsConfiguration graphicsConfiguration, final int size) {
+		if (atlas != null && atlas.matches(graphicsConfiguration, size)) return false;
+
+		final int width = configuration.width(), height = configuration.height();
+		atlas = new BlockAtlas(graphicsConfiguration, size);
+		staticLayer = createStaticLayer(graphicsConfiguration, size);
+		boardLayer = graphicsConfiguration.createCompatibleImage((width + 2) * size, (height + 2) * size);
+		redrawBoard = true;
+		return true;
+	}
+
+	/**
+	 * Redraw the cells of the board layer changed since the last frame, and
+	 * set the changed region to their bounds.
+	 */
+	private void updateBoardLayer(final int size) {
+		final int width = configuration.width(), height = configuration.height();
+
+		final boolean changed = gameController.collectDirtyCells(dirtyCells);
+		if (redrawBoard) {
+			final int fullMask = (1 << width) - 1;
+			for (int y = 0; y < height; y++) {
+				dirtyCells[y] = fullMask;
 			}
+		} else if (!changed) {
+			return;
 		}
 
-		// render the rest of the blocks
-		final TetrisBoardCell[][] cells = gameController.getBoardCells();
-		for (int y = 0; y < TetrisBoard.HEIGHT; y++) {
-			for (int x = 0; x < TetrisBoard.WIDTH; x++) {
-				final TetrisBoardCell cell = cells[y][x];
-				if (!cell.present) continue;
-
-				if (debugMode) {
-					g2d.setColor(Color.RED);
-				} else {
-					g2d.setColor(TetrisView.colorToSwing(cell.color));
+		final Graphics2D g2d = boardLayer.createGraphics();
+		try {
+			if (redrawBoard) {
+				g2d.drawImage(staticLayer, 0, 0, null);
+				region.setBounds(0, 0, boardLayer.getWidth(), boardLayer.getHeight());
+				redrawBoard = false;
+			}
+
+			// render the changed cells, in the actual gameplay area
+			final TetrisBoard board = gameController.getBoard();
+			int columns = 0, top = -1, bottom = -1;
+			for (int y = 0; y < height; y++) {
+				if (dirtyCells[y] == 0) continue;
+				columns |= dirtyCells[y];
+				if (top < 0) top = y;
+				bottom = y;
+				for (int cells = dirtyCells[y]; cells != 0; cells &= cells - 1) {
+					final int x = Integer.numberOfTrailingZeros(cells);
+					final int left = (x + 1) * size, cellTop = (y + 1) * size;
+					if (!board.isPresent(x, y)) {
+						g2d.drawImage(staticLayer, left, cellTop, left + size, cellTop + size,
+									  left, cellTop, left + size, cellTop + size, null);
+					} else if (debugMode) {
+						atlas.draw(g2d, DEBUG_COLOR, left, cellTop);
+					} else {
+						atlas.draw(g2d, board.getColor(x, y), left, cellTop);
+					}
 				}
-				g2d.fillRect(x * size, y * size, size, size);
 			}
+			if (columns != 0 && region.isEmpty()) {
+				final int left = Integer.numberOfTrailingZeros(columns), right = 31 - Integer.numberOfLeadingZeros(columns);
+				region.setBounds((left + 1) * size, (top + 1) * size, (right - left + 1) * size, (bottom - top + 1) * size);
+			}
+
+			// render the outline of the landing position of the tetrimino, if it changed
+			final Tetrimino t = gameController.getControlledTetrimino();
+			final TetriminoShape shape = t.getShape();
+			final int landingY = gameController.getLandingY();
+			g2d.setColor(GHOST_COLOR);
+			for (int i = 0; i < TetriminoShape.BLOCK_COUNT; i++) {
+				final int x = t.getX() + shape.blockX(i), y = landingY + shape.blockY(i);
+				if (y < 0 || y >= height || (dirtyCells[y] & (1 << x)) == 0) continue;
+				g2d.drawRect((x + 1) * size, (y + 1) * size, size - 1, size - 1);
+			}
+		} finally {
+			g2d.dispose();
+		}
+	}
+
+	/**
+	 * Render the parts of the game which never change : the border and the
+	 * background of the gameplay area.
+	 */
+	private BufferedImage createStaticLayer(final GraphicsConfiguration graphicsConfiguration, final int size) {
+		final int width = configuration.width(), height = configuration.height();
+		final BufferedImage layer = graphicsConfiguration.createCompatibleImage((width + 2) * size, (height + 2) * size);
+
+		final Graphics2D g2d = layer.createGraphics();
+		try {
+			g2d.setColor(BACKGROUND_COLOR);
+			g2d.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+
+			// render the game border
+			for (int x = 0; x < width + 2; x++) {
+				BlockAtlas.paintBlock(g2d, BORDER_COLOR, x * size, 0, size);                 // top
+				BlockAtlas.paintBlock(g2d, BORDER_COLOR, x * size, (height + 1) * size, size); // bottom
+			}
+			for (int y = 1; y < height + 1; y++) {
+				BlockAtlas.paintBlock(g2d, BORDER_COLOR, 0, y * size, size);                 // left
+				BlockAtlas.paintBlock(g2d, BORDER_COLOR, (width + 1) * size, y * size, size);  // right
+			}
+		} finally {
+			g2d.dispose();
 		}
+		return layer;
 	}
 
 	/**
@@ -127,7 +388,7 @@ public class GameScreen extends Screen {
 	private void renderHud(final Graphics g, final Font font) {
 		g.setFont(font);
 		g.setColor(Color.WHITE);
-		g.drawString("Score : " + gameController.getScore(), 0, 0);
+		g.drawString(hudText, 0, 0);
 	}
 
 	@Override
@@ -139,6 +400,14 @@ public class GameScreen extends Screen {
 			break;
 		case KeyEvent.VK_F1:
 			debugMode = !debugMode;
+			invalidate();
+			break;
+		case KeyEvent.VK_F2:
+			// the bot searches in the background, outside of the lock of the view
+			bot = bot != null ? null : new TetrisBot(
+				new PlacementSearch(HeuristicWeights.DEFAULT, ForkJoinPool.commonPool())
+					.setTimeBudget(BOT_TIME_BUDGET),
+				ForkJoinPool.commonPool());
 			break;
 		case KeyEvent.VK_UP:
 		case KeyEvent.VK_KP_UP:
@@ -148,6 +417,9 @@ public class GameScreen extends Screen {
 		case KeyEvent.VK_KP_DOWN:
 			gameController.keyDown();
 			break;
+		case KeyEvent.VK_SPACE:
+			gameController.keySpace();
+			break;
 		case KeyEvent.VK_LEFT:
 		case KeyEvent.VK_KP_LEFT:
 			gameController.keyLeft();
@@ -67,6 +67,30 @@ public abstract class Screen {
 	 */
 	public abstract void render(final Graphics2D g2d, final Font textFont);
 
+	/**
+	 * Render the Screen's state between two updates. By default, the state is
+	 * rendered as is.
+	 *
+	 * @param g2d Does the actual drawing of 2D primitives.
+	 * @param textFont Default font to be used for drawing text.
+	 * @param interpolation Fraction of the update interval elapsed since the
+	 * last update, in [0, 1).
+	 */
+	public void render(final Graphics2D g2d, final Font textFont, final double interpolation) {
+		render(g2d, textFont);
+	}
+
+	/**
+	 * Get the region of the container changed since the previous frame : only
+	 * this region is repainted. Called before each frame, under the same lock
+	 * as the rendering. By default, the whole container changes.
+	 *
+	 * @param interpolation Fraction of the update interval elapsed since the
+	 * last update, in [0, 1).
+	 * @return The changed region (possibly empty), or null for the whole container.
+	 */
+	public Rectangle changedRegion(final double interpolation) { return null; }
+
 	/**
 	 * Called whenever a key is pressed.
 	 */